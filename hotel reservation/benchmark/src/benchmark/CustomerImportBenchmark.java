@@ -0,0 +1,87 @@
+package benchmark;
+
+import model.Customer;
+import org.openjdk.jmh.annotations.*;
+import service.CustomerService;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+// Throughput of importing customers: validating the email and storing the
+// record. regexValidation keeps the previous per-customer Pattern approach
+// as a baseline for the hand-written validator.
+//
+// importCustomer numbers its emails from a shared counter, so no two calls on
+// any thread import the same address and every call takes the insert path.
+// The other benchmarks keep no state and cycle through pre-built emails, one
+// cursor per thread.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CustomerImportBenchmark {
+
+    @Param({"1000000"})
+    public int customers;
+
+    @Param({"16", "256"})
+    public int localPartLength;
+
+    private String localPart;
+    private String[] emails;
+    private CustomerService customerService;
+    private final AtomicLong nextImported = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void generateEmails() {
+        StringBuilder padding = new StringBuilder();
+        while (padding.length() < localPartLength) {
+            padding.append('x');
+        }
+        localPart = padding + ".";
+        emails = new String[customers];
+        for (int i = 0; i < customers; i++) {
+            emails[i] = localPart + i + "@hotel.com";
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void freshService() {
+        customerService = new CustomerService();
+        nextImported.set(0);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        String nextEmail(CustomerImportBenchmark benchmark) {
+            String email = benchmark.emails[next];
+            next = next + 1 == benchmark.customers ? 0 : next + 1;
+            return email;
+        }
+    }
+
+    @Benchmark
+    public void importCustomer() {
+        customerService.addCustomer(localPart + nextImported.getAndIncrement() + "@hotel.com", "Guest", "Imported");
+    }
+
+    @Benchmark
+    public Customer createCustomer(Cursor cursor) {
+        return new Customer("Guest", "Imported", cursor.nextEmail(this));
+    }
+
+    @Benchmark
+    public boolean validator(Cursor cursor) {
+        return Customer.isValidEmail(cursor.nextEmail(this));
+    }
+
+    @Benchmark
+    public boolean regexValidation(Cursor cursor) {
+        return Pattern.compile("^(.+)@(.+).com$").matcher(cursor.nextEmail(this)).matches();
+    }
+}
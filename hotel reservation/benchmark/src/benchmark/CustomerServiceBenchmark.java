@@ -0,0 +1,36 @@
+package benchmark;
+
+import model.Customer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CustomerServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int customers;
+
+    private HotelData data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new HotelData(1, customers, 0);
+    }
+
+    @State(Scope.Thread)
+    public static class Lookups {
+        final SplittableRandom random = new SplittableRandom(HotelData.SEED);
+    }
+
+    @Benchmark
+    public Customer getCustomer(Lookups lookups) {
+        return data.customerService.getCustomer(HotelData.email(lookups.random.nextInt(customers)));
+    }
+}
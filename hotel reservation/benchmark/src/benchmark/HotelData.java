@@ -0,0 +1,70 @@
+package benchmark;
+
+import model.Customer;
+import model.IRoom;
+import model.Room;
+import model.RoomType;
+import service.CustomerService;
+import service.ReservationService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Deterministic hotel contents shared by the benchmarks, so every run and
+// every machine measures the same data. Stays are laid out from tomorrow,
+// since bookings must fall within the hotel's booking window; only the
+// calendar dates move between runs, never the pattern of stays.
+final class HotelData {
+
+    static final LocalDate FIRST_NIGHT = LocalDate.now().plusDays(1);
+    static final int HORIZON_DAYS = 365;
+    static final long SEED = 42;
+
+    final ReservationService reservationService = new ReservationService();
+    final CustomerService customerService = new CustomerService();
+    final List<IRoom> rooms = new ArrayList<>();
+    final List<Customer> customers = new ArrayList<>();
+
+    HotelData(int roomCount, int customerCount, int reservationCount) {
+        for (int i = 0; i < roomCount; i++) {
+            IRoom room = new Room(String.valueOf(i), 50.0 + i % 200, i % 2 == 0 ? RoomType.Single : RoomType.Double);
+            rooms.add(room);
+        }
+        reservationService.addRooms(rooms);
+        for (int i = 0; i < customerCount; i++) {
+            customerService.addCustomer(email(i), "Guest", String.valueOf(i));
+            customers.add(customerService.getCustomer(email(i)));
+        }
+
+        // Fill each room's calendar with back-to-back stays until the target is reached.
+        SplittableRandom random = new SplittableRandom(SEED);
+        int[] nextFreeNight = new int[roomCount];
+        int booked = 0;
+        int attempts = 0;
+        while (booked < reservationCount && attempts < reservationCount * 4) {
+            attempts++;
+            int room = random.nextInt(roomCount);
+            int nights = 1 + random.nextInt(5);
+            int checkIn = nextFreeNight[room] + random.nextInt(3);
+            if (checkIn + nights > HORIZON_DAYS * 2) {
+                continue;
+            }
+            nextFreeNight[room] = checkIn + nights;
+            reservationService.reserveARoom(customers.get(random.nextInt(customerCount)), rooms.get(room),
+                    FIRST_NIGHT.plusDays(checkIn), FIRST_NIGHT.plusDays(checkIn + nights));
+            booked++;
+        }
+        // A benchmark over fewer stays than it was asked for would report
+        // misleading numbers, so a horizon too short for the target is an error.
+        if (booked < reservationCount) {
+            throw new IllegalStateException("Could only preload " + booked + " of " + reservationCount
+                    + " reservations for " + roomCount + " rooms within " + HORIZON_DAYS * 2 + " nights.");
+        }
+    }
+
+    static String email(int customer) {
+        return "guest" + customer + "@hotel.com";
+    }
+}
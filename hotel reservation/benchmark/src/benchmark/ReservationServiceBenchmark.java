@@ -0,0 +1,120 @@
+package benchmark;
+
+import model.Customer;
+import model.IRoom;
+import model.Reservation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Hot paths of ReservationService. The search and booking paths also run at 4
+// and 16 threads through the *Threads4 and *Threads16 variants. JMH's -t takes
+// one count and overrides them all, so leave it off to get the sweep.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ReservationServiceBenchmark {
+
+    // Bookings cycle through this many nights after the generated history.
+    private static final int BOOKING_WINDOW_NIGHTS = 2048;
+
+    @Param({"1000", "10000"})
+    public int rooms;
+
+    @Param({"10000", "100000"})
+    public int reservations;
+
+    @Param({"1000"})
+    public int customers;
+
+    @Param({"1", "7", "30"})
+    public int stayNights;
+
+    private HotelData data;
+    private final AtomicInteger nextBookingSlot = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        data = new HotelData(rooms, customers, reservations);
+        nextBookingSlot.set(0);
+    }
+
+    @State(Scope.Thread)
+    public static class Queries {
+        final SplittableRandom random = new SplittableRandom(HotelData.SEED);
+    }
+
+    @Benchmark
+    public Collection<IRoom> findRooms(Queries queries) {
+        LocalDate checkIn = HotelData.FIRST_NIGHT.plusDays(queries.random.nextInt(HotelData.HORIZON_DAYS));
+        return data.reservationService.findRooms(checkIn, checkIn.plusDays(stayNights));
+    }
+
+    // Books past the generated history and cancels again, so every call succeeds
+    // and takes the full write path. The stays cycle through a fixed window and
+    // never pile up, so the occupancy chunks and rollup span keep their size and
+    // every iteration measures the same state. Concurrent calls get different
+    // slots of the window as long as there are fewer threads than slots.
+    @Benchmark
+    public Reservation reserveAndCancel(Queries queries) {
+        int slot = Math.floorMod(nextBookingSlot.getAndIncrement(), BOOKING_WINDOW_NIGHTS / stayNights);
+        IRoom room = data.rooms.get(queries.random.nextInt(rooms));
+        Customer customer = data.customers.get(queries.random.nextInt(customers));
+        LocalDate checkIn = HotelData.FIRST_NIGHT.plusDays(HotelData.HORIZON_DAYS * 2 + slot * stayNights);
+        Reservation reservation = data.reservationService.reserveARoom(customer, room, checkIn,
+                checkIn.plusDays(stayNights));
+        data.reservationService.cancelReservation(customer, room, checkIn);
+        return reservation;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Collection<IRoom> findRoomsThreads4(Queries queries) {
+        return findRooms(queries);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Collection<IRoom> findRoomsThreads16(Queries queries) {
+        return findRooms(queries);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Reservation reserveAndCancelThreads4(Queries queries) {
+        return reserveAndCancel(queries);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Reservation reserveAndCancelThreads16(Queries queries) {
+        return reserveAndCancel(queries);
+    }
+
+    @Benchmark
+    public Collection<Reservation> getCustomersReservation(Queries queries) {
+        return data.reservationService.getCustomersReservation(data.customers.get(queries.random.nextInt(customers)));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public void mixedSearch(Queries queries, Blackhole blackhole) {
+        blackhole.consume(findRooms(queries));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedBook(Queries queries, Blackhole blackhole) {
+        blackhole.consume(reserveAndCancel(queries));
+    }
+}
@@ -1,24 +1,51 @@
 package api;
 
+import metrics.HotelMetrics;
 import model.Customer;
 import model.IRoom;
 import model.Room;
 import model.RoomType;
+import service.CustomerImportReport;
 import service.CustomerService;
-import service.ReservationService;
+import service.HotelEngine;
+import service.OccupancyReport;
+import service.PricingRules;
+import service.ReservationExport;
+import service.ReservationExportPage;
+import service.RoomImportReport;
+import service.RoomImporter;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 
 
 public class AdminResource {
-    public static final CustomerService customerService = new CustomerService();
-    public static final ReservationService reservationService = new ReservationService();
+    // One calendar year, leap years included.
+    private static final int MAX_REPORT_NIGHTS = 366;
 
-    public static void createRooms(String roomNumber, double price, RoomType roomType) {
+    private final HotelEngine hotelEngine;
+    private final CustomerService customerService;
+    private final HotelMetrics metrics;
+
+    public AdminResource(HotelEngine hotelEngine) {
+        this.hotelEngine = hotelEngine;
+        this.customerService = hotelEngine.getCustomerService();
+        this.metrics = hotelEngine.getMetrics();
+    }
+
+    public void createRooms(String roomNumber, double price, RoomType roomType) {
+        long start = System.nanoTime();
         IRoom room = new Room(roomNumber, price, roomType);
-        reservationService.addRoom(room);
-        System.out.println("Your Room has been Created!");
+        hotelEngine.addRoom(room);
+        metrics.recordAdmin(System.nanoTime() - start);
     }
 
 
@@ -27,20 +54,74 @@ public class AdminResource {
     }
 
     public void addRoom(List<IRoom> rooms){
-        for (IRoom room : rooms) {
-            reservationService.addRoom(room);
-        }
+        long start = System.nanoTime();
+        hotelEngine.addRooms(rooms);
+        metrics.recordAdmin(System.nanoTime() - start);
+    }
+
+    public RoomImportReport importRooms(Path csvFile) throws IOException {
+        long start = System.nanoTime();
+        RoomImportReport report = new RoomImporter(hotelEngine).importRooms(csvFile);
+        metrics.recordAdmin(System.nanoTime() - start);
+        return report;
     }
 
+    public CustomerImportReport importCustomers(Path csvFile) throws IOException {
+        long start = System.nanoTime();
+        CustomerImportReport report = customerService.importCustomers(csvFile);
+        metrics.recordAdmin(System.nanoTime() - start);
+        return report;
+    }
+
+    public HotelMetrics getMetrics(){
+        return metrics;
+    }
+
+    // Streams every reservation to the console as CSV instead of building one string per booking.
     public void displayAllReservations(){
-        reservationService.printAllReservation();
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        try {
+            hotelEngine.exportReservations(new ReservationExport.Builder().build(), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public ReservationExportPage exportReservations(ReservationExport export, Path file) throws IOException {
+        long start = System.nanoTime();
+        ReservationExportPage page = hotelEngine.exportReservations(export, file);
+        metrics.recordAdmin(System.nanoTime() - start);
+        return page;
+    }
+
+    public void setPricingRules(PricingRules pricingRules){
+        hotelEngine.setPricingRules(pricingRules);
+    }
+
+    public OccupancyReport getOccupancyReport(LocalDate from, LocalDate to){
+        checkReportDates(from, to);
+        long start = System.nanoTime();
+        OccupancyReport report = hotelEngine.occupancyReport(from, to);
+        metrics.recordAdmin(System.nanoTime() - start);
+        return report;
     }
 
     public Collection<IRoom> getAllRooms(){
-        return reservationService.allRooms();
+        return hotelEngine.allRooms();
     }
 
     public Collection<Customer> getAllCustomers(){
         return customerService.getAllCustomers();
     }
+
+    // A report walks every night of the range on every shard, so the span is
+    // capped like a search's.
+    private static void checkReportDates(LocalDate from, LocalDate to){
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("Error, report range must end after it starts.");
+        }
+        if (to.toEpochDay() - from.toEpochDay() > MAX_REPORT_NIGHTS) {
+            throw new IllegalArgumentException("Error, a report can cover at most " + MAX_REPORT_NIGHTS + " nights.");
+        }
+    }
 }
@@ -0,0 +1,74 @@
+package api;
+
+import model.IRoom;
+import model.Reservation;
+
+import java.io.Closeable;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+// Non-blocking front for HotelResource. Calls run on virtual threads when the
+// JVM has them and on a fixed pool otherwise. At most maxInFlight calls run at
+// once; beyond that new calls fail fast so callers can back off.
+public class AsyncHotelResource implements Closeable {
+    private final HotelResource hotelResource;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+
+    public AsyncHotelResource(HotelResource hotelResource, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Error, at least one call must be allowed in flight.");
+        }
+        this.hotelResource = hotelResource;
+        this.executor = newExecutor(Math.min(maxInFlight, Runtime.getRuntime().availableProcessors() * 4));
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    public CompletableFuture<Collection<IRoom>> findARoom(LocalDate checkIn, LocalDate checkOut){
+        return submit(() -> hotelResource.findARoom(checkIn, checkOut));
+    }
+
+    public CompletableFuture<Reservation> bookARoom(String customerEmail, IRoom room, LocalDate checkInDate,
+                                                    LocalDate checkOutDate){
+        return submit(() -> hotelResource.bookARoom(customerEmail, room, checkInDate, checkOutDate));
+    }
+
+    public CompletableFuture<Collection<Reservation>> getCustomersReservations(String customerEmail){
+        return submit(() -> hotelResource.getCustomersReservations(customerEmail));
+    }
+
+    public int availablePermits() {
+        return inFlight.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        if (!inFlight.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Error, the hotel is busy, try again."));
+        }
+        try {
+            return CompletableFuture.supplyAsync(call, executor).whenComplete((result, error) -> inFlight.release());
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static ExecutorService newExecutor(int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "hotel-async");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -1,40 +1,150 @@
 package api;
 
+import metrics.HotelMetrics;
 import model.Customer;
 import model.IRoom;
 import model.Reservation;
+import model.RoomType;
 import service.CustomerService;
-import service.ReservationService;
+import service.AlternativeStay;
+import service.HotelEngine;
+import service.RoomFacets;
+import service.RoomSearch;
+import service.RoomUnavailableException;
+import service.WaitlistRequest;
 
+import java.time.LocalDate;
 import java.util.Collection;
-import java.util.Date;
+import java.util.List;
 
 public class HotelResource {
-    public static final CustomerService customerService = new CustomerService();
-    public static final ReservationService reservationService = new ReservationService();
+    private static final int ALTERNATIVE_DATES_RANGE = 7;
+    private static final int MAX_SEARCH_NIGHTS = 365;
+
+    private final HotelEngine hotelEngine;
+    private final CustomerService customerService;
+    private final HotelMetrics metrics;
+
+    public HotelResource(HotelEngine hotelEngine) {
+        this.hotelEngine = hotelEngine;
+        this.customerService = hotelEngine.getCustomerService();
+        this.metrics = hotelEngine.getMetrics();
+    }
 
     public Customer getCustomer(String email){
         return customerService.getCustomer(email);
     }
 
     public void createACustomer(String  email,  String firstName, String lastName){
-        customerService.addCustomer(email, firstName, lastName);
-        System.out.println("Your account has been Created!");
+        if (!customerService.addCustomer(email, firstName, lastName)) {
+            throw new IllegalArgumentException("Error, an account with that email already exists.");
+        }
     }
 
     public IRoom getRoom(String roomNumber){
-        return reservationService.getARoom(roomNumber);
+        return hotelEngine.getARoom(roomNumber);
+    }
+
+    public Reservation bookARoom(String customerEmail, IRoom room, LocalDate checkInDate, LocalDate checkOutDate){
+        long start = System.nanoTime();
+        try {
+            Reservation reservation = hotelEngine.reserveARoom(getCustomer(customerEmail), room, checkInDate, checkOutDate);
+            metrics.recordBooking(System.nanoTime() - start);
+            return reservation;
+        } catch (RoomUnavailableException e) {
+            metrics.recordConflict(System.nanoTime() - start);
+            throw e;
+        } catch (RuntimeException e) {
+            metrics.recordFailedBooking(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    public double quoteStay(IRoom room, LocalDate checkInDate, LocalDate checkOutDate){
+        long start = System.nanoTime();
+        double price = hotelEngine.quote(room, checkInDate, checkOutDate);
+        metrics.recordLookup(System.nanoTime() - start);
+        return price;
+    }
+
+    public Reservation cancelReservation(String customerEmail, IRoom room, LocalDate checkInDate){
+        long start = System.nanoTime();
+        try {
+            Reservation reservation = hotelEngine.cancelReservation(getCustomer(customerEmail), room, checkInDate);
+            metrics.recordCancellation(System.nanoTime() - start);
+            return reservation;
+        } catch (RuntimeException e) {
+            metrics.recordFailedCancellation(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    public Reservation changeReservationDates(String customerEmail, IRoom room, LocalDate checkInDate,
+                                              LocalDate newCheckInDate, LocalDate newCheckOutDate){
+        long start = System.nanoTime();
+        try {
+            Reservation reservation = hotelEngine.changeReservationDates(getCustomer(customerEmail), room, checkInDate,
+                    newCheckInDate, newCheckOutDate);
+            metrics.recordModification(System.nanoTime() - start);
+            return reservation;
+        } catch (RoomUnavailableException e) {
+            metrics.recordModificationConflict(System.nanoTime() - start);
+            throw e;
+        } catch (RuntimeException e) {
+            metrics.recordFailedModification(System.nanoTime() - start);
+            throw e;
+        }
     }
 
-    public Reservation bookARoom(String customerEmail, IRoom room, Date checkInDate, Date checkOutDate){
-        return reservationService.reserveARoom(getCustomer(customerEmail), room, checkInDate, checkOutDate);
+    public WaitlistRequest joinWaitlist(String customerEmail, RoomType roomType, LocalDate checkInDate,
+                                        LocalDate checkOutDate, int priority){
+        return hotelEngine.joinWaitlist(getCustomer(customerEmail), roomType, checkInDate, checkOutDate, priority);
+    }
+
+    public void leaveWaitlist(WaitlistRequest request){
+        hotelEngine.leaveWaitlist(request);
     }
 
     public Collection<Reservation> getCustomersReservations(String customerEmail){
-        return reservationService.getCustomersReservation(getCustomer(customerEmail));
+        long start = System.nanoTime();
+        Collection<Reservation> reservations = hotelEngine.getCustomersReservation(getCustomer(customerEmail));
+        metrics.recordLookup(System.nanoTime() - start);
+        return reservations;
+    }
+
+    public Collection<IRoom> findARoom(LocalDate checkIn, LocalDate checkOut){
+        checkSearchDates(checkIn, checkOut);
+        long start = System.nanoTime();
+        Collection<IRoom> rooms = hotelEngine.findRooms(checkIn, checkOut);
+        metrics.recordSearch(System.nanoTime() - start, rooms.size());
+        return rooms;
+    }
+
+    public Collection<IRoom> findARoom(RoomSearch search){
+        checkSearchDates(search.getCheckInDate(), search.getCheckOutDate());
+        long start = System.nanoTime();
+        Collection<IRoom> rooms = hotelEngine.findRooms(search);
+        metrics.recordSearch(System.nanoTime() - start, rooms.size());
+        return rooms;
+    }
+
+    public RoomFacets getRoomFacets(){
+        return hotelEngine.roomFacets();
+    }
+
+    public List<AlternativeStay> findAlternativeStays(LocalDate checkIn, LocalDate checkOut){
+        checkSearchDates(checkIn, checkOut);
+        return hotelEngine.alternativeStays(checkIn, checkOut, ALTERNATIVE_DATES_RANGE);
     }
 
-    public Collection<IRoom> findARoom(Date checkIn, Date checkOut){
-        return reservationService.findRooms(checkIn, checkOut);
+    // A search walks every night of the range, so an empty or reversed range is
+    // rejected like a booking would be, and the span is capped.
+    private static void checkSearchDates(LocalDate checkIn, LocalDate checkOut){
+        if (!checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("Error, check out must be after check in.");
+        }
+        if (checkOut.toEpochDay() - checkIn.toEpochDay() > MAX_SEARCH_NIGHTS) {
+            throw new IllegalArgumentException("Error, a search can cover at most " + MAX_SEARCH_NIGHTS + " nights.");
+        }
     }
 }
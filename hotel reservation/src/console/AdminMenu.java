@@ -32,10 +32,12 @@ public class AdminMenu {
         System.out.println("Enter the Room Price per Night");
         Double roomCost = scanner.nextDouble();
 
-        AdminResource.createRooms(roomID, roomCost, roomType);
+        adminResource.createRooms(roomID, roomCost, roomType);
+        System.out.println("Your Room has been Created!");
     }
 
-    public static void startAdmin() {
+    public static void startAdmin(AdminResource resource) {
+        adminResource = resource;
         input = new Scanner(System.in);
         int selection = 0;
 
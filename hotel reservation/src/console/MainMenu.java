@@ -1,20 +1,23 @@
 package console;
 
+import api.AdminResource;
 import api.HotelResource;
-import model.Customer;
 import model.IRoom;
-import service.CustomerService;
-import service.ReservationService;
-
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import service.AlternativeStay;
+import service.HotelEngine;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 
 public class MainMenu {
-    private static final CustomerService customerService = new CustomerService();
-    private static final ReservationService reservationService = new ReservationService();
-    private static final HotelResource hotelResource = new HotelResource();
+    private static HotelEngine hotelEngine = new HotelEngine();
+    private static HotelResource hotelResource = new HotelResource(hotelEngine);
+    private static final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     public static int exitApp = 5;
     public static Scanner input;
     
@@ -54,7 +57,7 @@ public class MainMenu {
                 case 4:
                     //switches to admin menu
                     System.out.println("You Selected the Admin Menu");
-                    AdminMenu.startAdmin();
+                    AdminMenu.startAdmin(new AdminResource(hotelEngine));
                     return;
                 case 5:
                     //closes console
@@ -81,8 +84,14 @@ public class MainMenu {
         System.out.println("Enter Customer Email:");
         String email = scanner.next();
 
-        hotelResource.createACustomer(email, firstName, lastName);
-        System.out.println(new Customer(firstName, lastName, email));
+        try {
+            hotelResource.createACustomer(email, firstName, lastName);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        System.out.println("Your account has been Created!");
+        System.out.println(hotelResource.getCustomer(email));
 
     }
 
@@ -95,33 +104,41 @@ public class MainMenu {
 
     private static void findAndReserveARoom() {
         //Variables for Room Search
-        Date checkOutDate = new Date();
-        Date checkInDate = new Date();
-        //Converter for going from String to Date
-        SimpleDateFormat formatter = new SimpleDateFormat("dd/MM/yyyy");
+        LocalDate checkInDate;
+        LocalDate checkOutDate;
         //Scanner opening
         Scanner scanner = new Scanner(System.in);
         System.out.println("Enter your Arrival Date in DD/MM/YYYY Format");
         String checkInString = scanner.next();
-
-        //Converting dates
-        try {
-            checkInDate = formatter.parse(checkInString);
-        } catch (ParseException e) {
-            e.printStackTrace();
-        }
-
         System.out.println("Enter Your Check Out Date");
         String checkOutString = scanner.next();
+
+        //Converting dates
         try {
-            checkOutDate = formatter.parse(checkOutString);
-        } catch (ParseException e) {
-            e.printStackTrace();
+            checkInDate = LocalDate.parse(checkInString, dateFormatter);
+            checkOutDate = LocalDate.parse(checkOutString, dateFormatter);
+        } catch (DateTimeParseException e) {
+            System.out.println("Error, dates must be in DD/MM/YYYY Format.");
+            return;
         }
 
         //////Add in Code here to make reservations once we get an Idea of how it will display
         System.out.println("Available Hotel Rooms for your Days of Travel");
-        System.out.println(hotelResource.findARoom(checkInDate , checkOutDate));
+        Collection<IRoom> availableRooms;
+        try {
+            availableRooms = hotelResource.findARoom(checkInDate , checkOutDate);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        if (availableRooms.isEmpty()) {
+            System.out.println("No rooms are free for those dates. Nearest free dates:");
+            for (AlternativeStay alternative : hotelResource.findAlternativeStays(checkInDate, checkOutDate)) {
+                System.out.println(alternative);
+            }
+            return;
+        }
+        System.out.println(availableRooms);
 
         System.out.println("Enter room number: ");
         String roomNumber = scanner.next();
@@ -132,13 +149,23 @@ public class MainMenu {
         System.out.println("Enter customer email: ");
         String email = scanner.next();
 
-        hotelResource.bookARoom(email , room , checkInDate , checkOutDate);
+        try {
+            hotelResource.bookARoom(email , room , checkInDate , checkOutDate);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
         System.out.println(email + room + checkInDate + checkOutDate);
         System.out.println("Your Reservation has been booked");
 
     }
 
-    public static void  main(String[] args){
+    public static void  main(String[] args) throws IOException {
+        //Optional data directory to keep the hotel across restarts
+        if (args.length > 0) {
+            hotelEngine = HotelEngine.open(Paths.get(args[0]));
+            hotelResource = new HotelResource(hotelEngine);
+        }
         mainMenu();
     }
 }
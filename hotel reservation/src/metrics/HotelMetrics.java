@@ -0,0 +1,237 @@
+package metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histograms and counters for the calls made through HotelResource and
+// AdminResource. Readable over JMX and as a periodic text report. Cancellations
+// and date changes have their own histogram so they never skew booking latency.
+public class HotelMetrics implements HotelMetricsMBean {
+
+    private final LatencyHistogram searchLatency = new LatencyHistogram();
+    private final LatencyHistogram bookingLatency = new LatencyHistogram();
+    private final LatencyHistogram changeLatency = new LatencyHistogram();
+    private final LatencyHistogram lookupLatency = new LatencyHistogram();
+    private final LatencyHistogram adminLatency = new LatencyHistogram();
+    private final LongAdder emptySearches = new LongAdder();
+    private final LongAdder bookings = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder failedBookings = new LongAdder();
+    private final LongAdder cancellations = new LongAdder();
+    private final LongAdder modifications = new LongAdder();
+    private final LongAdder failedCancellations = new LongAdder();
+    private final LongAdder failedModifications = new LongAdder();
+    private ScheduledExecutorService reporter;
+
+    public void recordSearch(long nanos, int roomsFound) {
+        searchLatency.record(nanos);
+        if (roomsFound == 0) {
+            emptySearches.increment();
+        }
+    }
+
+    public void recordBooking(long nanos) {
+        bookingLatency.record(nanos);
+        bookings.increment();
+    }
+
+    public void recordConflict(long nanos) {
+        bookingLatency.record(nanos);
+        conflicts.increment();
+    }
+
+    public void recordFailedBooking(long nanos) {
+        bookingLatency.record(nanos);
+        failedBookings.increment();
+    }
+
+    public void recordCancellation(long nanos) {
+        changeLatency.record(nanos);
+        cancellations.increment();
+    }
+
+    public void recordModification(long nanos) {
+        changeLatency.record(nanos);
+        modifications.increment();
+    }
+
+    // Conflicts count together with booking conflicts, latency goes with the changes.
+    public void recordModificationConflict(long nanos) {
+        changeLatency.record(nanos);
+        conflicts.increment();
+    }
+
+    public void recordFailedCancellation(long nanos) {
+        changeLatency.record(nanos);
+        failedCancellations.increment();
+    }
+
+    public void recordFailedModification(long nanos) {
+        changeLatency.record(nanos);
+        failedModifications.increment();
+    }
+
+    public void recordLookup(long nanos) {
+        lookupLatency.record(nanos);
+    }
+
+    public void recordAdmin(long nanos) {
+        adminLatency.record(nanos);
+    }
+
+    public LatencyHistogram getSearchLatency() {
+        return searchLatency;
+    }
+
+    public LatencyHistogram getBookingLatency() {
+        return bookingLatency;
+    }
+
+    public LatencyHistogram getChangeLatency() {
+        return changeLatency;
+    }
+
+    public LatencyHistogram getLookupLatency() {
+        return lookupLatency;
+    }
+
+    public LatencyHistogram getAdminLatency() {
+        return adminLatency;
+    }
+
+    @Override
+    public long getSearches() {
+        return searchLatency.getCount();
+    }
+
+    @Override
+    public long getEmptySearches() {
+        return emptySearches.sum();
+    }
+
+    @Override
+    public long getBookings() {
+        return bookings.sum();
+    }
+
+    @Override
+    public long getConflicts() {
+        return conflicts.sum();
+    }
+
+    @Override
+    public long getFailedBookings() {
+        return failedBookings.sum();
+    }
+
+    @Override
+    public long getCancellations() {
+        return cancellations.sum();
+    }
+
+    @Override
+    public long getModifications() {
+        return modifications.sum();
+    }
+
+    @Override
+    public long getFailedCancellations() {
+        return failedCancellations.sum();
+    }
+
+    @Override
+    public long getFailedModifications() {
+        return failedModifications.sum();
+    }
+
+    @Override
+    public long getLookups() {
+        return lookupLatency.getCount();
+    }
+
+    @Override
+    public long getAdminCalls() {
+        return adminLatency.getCount();
+    }
+
+    @Override
+    public long getSearchP50Micros() {
+        return searchLatency.percentileNanos(50) / 1000;
+    }
+
+    @Override
+    public long getSearchP99Micros() {
+        return searchLatency.percentileNanos(99) / 1000;
+    }
+
+    @Override
+    public long getBookingP50Micros() {
+        return bookingLatency.percentileNanos(50) / 1000;
+    }
+
+    @Override
+    public long getBookingP99Micros() {
+        return bookingLatency.percentileNanos(99) / 1000;
+    }
+
+    @Override
+    public long getChangeP50Micros() {
+        return changeLatency.percentileNanos(50) / 1000;
+    }
+
+    @Override
+    public long getChangeP99Micros() {
+        return changeLatency.percentileNanos(99) / 1000;
+    }
+
+    @Override
+    public long getLookupP99Micros() {
+        return lookupLatency.percentileNanos(99) / 1000;
+    }
+
+    @Override
+    public long getAdminP99Micros() {
+        return adminLatency.percentileNanos(99) / 1000;
+    }
+
+    @Override
+    public String report() {
+        return "searches=" + getSearches() + " empty=" + getEmptySearches() +
+                " p50=" + getSearchP50Micros() + "us p99=" + getSearchP99Micros() + "us" +
+                " | bookings=" + getBookings() + " conflicts=" + getConflicts() + " failed=" + getFailedBookings() +
+                " p50=" + getBookingP50Micros() + "us p99=" + getBookingP99Micros() + "us" +
+                " | cancelled=" + getCancellations() + " cancelFailed=" + getFailedCancellations() +
+                " modified=" + getModifications() + " modifyFailed=" + getFailedModifications() +
+                " p50=" + getChangeP50Micros() + "us p99=" + getChangeP99Micros() + "us" +
+                " | lookups=" + getLookups() + " p99=" + getLookupP99Micros() + "us" +
+                " | admin=" + getAdminCalls() + " p99=" + getAdminP99Micros() + "us";
+    }
+
+    public void registerMBean(String hotelName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer()
+                .registerMBean(this, new ObjectName("hotel:type=HotelMetrics,name=" + ObjectName.quote(hotelName)));
+    }
+
+    public synchronized void startReporting(long period, TimeUnit unit, PrintStream out) {
+        stopReporting();
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hotel-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> out.println(report()), period, period, unit);
+    }
+
+    public synchronized void stopReporting() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package metrics;
+
+public interface HotelMetricsMBean {
+    long getSearches();
+    long getEmptySearches();
+    long getBookings();
+    long getConflicts();
+    long getFailedBookings();
+    long getCancellations();
+    long getModifications();
+    long getFailedCancellations();
+    long getFailedModifications();
+    long getLookups();
+    long getAdminCalls();
+
+    long getSearchP50Micros();
+    long getSearchP99Micros();
+    long getBookingP50Micros();
+    long getBookingP99Micros();
+    long getChangeP50Micros();
+    long getChangeP99Micros();
+    long getLookupP99Micros();
+    long getAdminP99Micros();
+
+    String report();
+}
@@ -1,18 +1,13 @@
 package model;
 
-import java.util.regex.Pattern;
-
 public class Customer {
     String firstName;
     String lastName;
     String email;
 
-    private String emailRegEx = "^(.+)@(.+).com$";
-    private Pattern pattern = Pattern.compile(emailRegEx);
-
     public Customer(String firstName, String lastName, String email) {
 
-        if (!pattern.matcher(email).matches()) {
+        if (!isValidEmail(email)) {
             throw new IllegalArgumentException("Error, invalid email.");
         }
 
@@ -42,13 +37,50 @@ public class Customer {
     }
 
     public void setEmail(String email) {
-        if (!pattern.matcher(email).matches()) {
+        if (!isValidEmail(email)) {
             throw new IllegalArgumentException("Error, invalid email.");
         }
 
         this.email = email;
     }
 
+    // Single-pass equivalent of matching "^(.+)@(.+).com$": some '@' after the first
+    // character leaves at least two characters before the closing "com", and no
+    // character is a line terminator (which '.' would not match).
+    public static boolean isValidEmail(String email) {
+        int length = email.length();
+        if (length < 7 || !email.endsWith("com")) {
+            return false;
+        }
+        boolean hasAt = false;
+        for (int i = 0; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+            if (c == '@' && i >= 1 && i <= length - 6) {
+                hasAt = true;
+            }
+        }
+        return hasAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Customer)) {
+            return false;
+        }
+        return email.equals(((Customer) o).email);
+    }
+
+    @Override
+    public int hashCode() {
+        return email.hashCode();
+    }
+
     @Override
     public String toString(){
         return "Your name: " + firstName + " " + lastName + "\nYour email: " + email;
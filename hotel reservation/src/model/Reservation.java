@@ -1,56 +1,87 @@
 package model;
 
-import java.util.Date;
+import java.time.LocalDate;
+import java.util.Objects;
 
 public class Reservation {
-    Customer customer;
-    Room iRoom;
-    Date checkInDate;
-    Date checkOutDate;
+    private final Customer customer;
+    private final IRoom iRoom;
+    private final int checkInDay;
+    private final int checkOutDay;
+    private final double price;
 
-    public Reservation(Customer customer, IRoom iRoom, Date checkInDate, Date checkOutDate){
+    public Reservation(Customer customer, IRoom iRoom, LocalDate checkInDate, LocalDate checkOutDate){
+        this(customer, iRoom, (int) checkInDate.toEpochDay(), (int) checkOutDate.toEpochDay());
+    }
+
+    public Reservation(Customer customer, IRoom iRoom, int checkInDay, int checkOutDay){
+        this(customer, iRoom, checkInDay, checkOutDay, iRoom.getRoomPrice());
+    }
+
+    // The nightly price is fixed when booking; it does not follow later changes to the room.
+    public Reservation(Customer customer, IRoom iRoom, int checkInDay, int checkOutDay, double price){
         this.customer=customer;
-        this.iRoom= (Room) iRoom;
-        this.checkInDate=checkInDate;
-        this.checkOutDate=checkOutDate;
+        this.iRoom=iRoom;
+        this.checkInDay=checkInDay;
+        this.checkOutDay=checkOutDay;
+        this.price=price;
     }
 
     public Customer getCustomer() {
         return customer;
     }
 
-    public void setCustomer(Customer customer) {
-        this.customer = customer;
-    }
-
     public IRoom getiRoom() {
         return iRoom;
     }
 
-    public void setiRoom(IRoom iRoom) {
-        this.iRoom = (Room) iRoom;
+    public LocalDate getCheckInDate() {
+        return LocalDate.ofEpochDay(checkInDay);
+    }
+
+    public LocalDate getCheckOutDate() {
+        return LocalDate.ofEpochDay(checkOutDay);
+    }
+
+    public int getCheckInDay() {
+        return checkInDay;
     }
 
-    public Date getCheckInDate() {
-        return checkInDate;
+    public int getCheckOutDay() {
+        return checkOutDay;
     }
 
-    public void setCheckInDate(Date checkInDate) {
-        this.checkInDate = checkInDate;
+    public double getPrice() {
+        return price;
     }
 
-    public Date getCheckOutDate() {
-        return checkOutDate;
+    public boolean overlaps(int otherCheckInDay, int otherCheckOutDay) {
+        return checkInDay < otherCheckOutDay && otherCheckInDay < checkOutDay;
     }
 
-    public void setCheckOutDate(Date checkOutDate) {
-        this.checkOutDate = checkOutDate;
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Reservation)) {
+            return false;
+        }
+        Reservation that = (Reservation) o;
+        return checkInDay == that.checkInDay && checkOutDay == that.checkOutDay
+                && iRoom.getRoomNumber().equals(that.iRoom.getRoomNumber())
+                && Objects.equals(customer, that.customer);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(iRoom.getRoomNumber(), customer, checkInDay, checkOutDay);
     }
 
     @Override
     public String toString() {
         return "Reservation Details: " + "Customer: " + customer.getFirstName() + " " + customer.getLastName() +
-                "  Room Number: " + iRoom.getRoomNumber() + " Check in: " + checkInDate +
-                " Check out:" + checkOutDate;
+                "  Room Number: " + iRoom.getRoomNumber() + " Check in: " + getCheckInDate() +
+                " Check out:" + getCheckOutDate();
     }
 }
@@ -0,0 +1,42 @@
+package service;
+
+import model.IRoom;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Collections;
+
+// A stay of the requested length moved by a few days, with the rooms free for it.
+public class AlternativeStay {
+    private final LocalDate checkInDate;
+    private final LocalDate checkOutDate;
+    private final Collection<IRoom> rooms;
+
+    public AlternativeStay(LocalDate checkInDate, LocalDate checkOutDate, Collection<IRoom> rooms) {
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+        this.rooms = Collections.unmodifiableCollection(rooms);
+    }
+
+    public LocalDate getCheckInDate() {
+        return checkInDate;
+    }
+
+    public LocalDate getCheckOutDate() {
+        return checkOutDate;
+    }
+
+    public Collection<IRoom> getRooms() {
+        return rooms;
+    }
+
+    public long daysFrom(LocalDate requestedCheckIn) {
+        return ChronoUnit.DAYS.between(requestedCheckIn, checkInDate);
+    }
+
+    @Override
+    public String toString() {
+        return "Check in: " + checkInDate + " Check out: " + checkOutDate + "  Available rooms: " + rooms.size();
+    }
+}
@@ -0,0 +1,46 @@
+package service;
+
+import java.util.Collections;
+import java.util.List;
+
+public class CustomerImportReport {
+    private final int importedCustomers;
+    private final int duplicateCustomers;
+    private final List<String> rejectedRows;
+    private final long elapsedNanos;
+
+    public CustomerImportReport(int importedCustomers, int duplicateCustomers, List<String> rejectedRows,
+                                long elapsedNanos) {
+        this.importedCustomers = importedCustomers;
+        this.duplicateCustomers = duplicateCustomers;
+        this.rejectedRows = Collections.unmodifiableList(rejectedRows);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getImportedCustomers() {
+        return importedCustomers;
+    }
+
+    public int getDuplicateCustomers() {
+        return duplicateCustomers;
+    }
+
+    public List<String> getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getRowsPerSecond() {
+        long rows = (long) importedCustomers + duplicateCustomers + rejectedRows.size();
+        return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Imported customers: " + importedCustomers + "  Duplicates: " + duplicateCustomers +
+                "  Rejected rows: " + rejectedRows.size() + "  Rows per second: " + Math.round(getRowsPerSecond());
+    }
+}
@@ -2,20 +2,114 @@ package service;
 
 import model.Customer;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
 
 public class CustomerService {
 
-    private static final Map<String, Customer> mapOfCustomer = new HashMap<String, Customer>();
+    // Keyed by normalized email, so "A@x.com" and "a@x.com" are the same account.
+    private final Map<String, Customer> mapOfCustomer = new ConcurrentHashMap<String, Customer>();
+    private volatile ReservationJournal journal;
 
-    public void addCustomer(String email, String firstName, String lastName){
-        Customer customer = new Customer(firstName, lastName, email);
-        mapOfCustomer.put(email, customer);
+    void setJournal(ReservationJournal reservationJournal) {
+        journal = reservationJournal;
+    }
+
+    public static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Returns false, and changes nothing, when the email is already registered.
+    public boolean addCustomer(String email, String firstName, String lastName){
+        ReservationJournal currentJournal = journal;
+        Customer customer = new Customer(firstName, lastName, normalizeEmail(email));
+        long sequence = register(customer, currentJournal);
+        if (sequence < 0) {
+            return false;
+        }
+        if (currentJournal != null) {
+            try {
+                currentJournal.awaitDurable(sequence);
+            } catch (RuntimeException e) {
+                // The account never reached the disk, so it must not stay registered.
+                mapOfCustomer.remove(customer.getEmail(), customer);
+                throw e;
+            }
+        }
+        return true;
+    }
+
+    // Journals a new customer before the account becomes visible, so none of its
+    // bookings can reach the log first. Returns -1 for a known email, otherwise
+    // the journal sequence (0 without a journal).
+    private long register(Customer customer, ReservationJournal currentJournal) {
+        if (currentJournal == null) {
+            return mapOfCustomer.putIfAbsent(customer.getEmail(), customer) == null ? 0 : -1;
+        }
+        return currentJournal.publish(() -> {
+            long[] sequence = {-1};
+            mapOfCustomer.computeIfAbsent(customer.getEmail(), key -> {
+                sequence[0] = currentJournal.customerCreated(customer);
+                return customer;
+            });
+            return sequence[0];
+        });
+    }
+
+    // Streams email,firstName,lastName rows and registers them in parallel.
+    // Rows for already registered emails are counted as duplicates.
+    public CustomerImportReport importCustomers(Path csvFile) throws IOException {
+        long start = System.nanoTime();
+        LongAdder imported = new LongAdder();
+        LongAdder duplicates = new LongAdder();
+        Queue<String> rejectedRows = new ConcurrentLinkedQueue<>();
+        Queue<Customer> registered = new ConcurrentLinkedQueue<>();
+        LongAccumulator lastSequence = new LongAccumulator(Math::max, 0);
+        ReservationJournal currentJournal = journal;
+
+        try (Stream<String> lines = Files.lines(csvFile, StandardCharsets.UTF_8)) {
+            lines.parallel().forEach(line -> {
+                if (line.isBlank() || line.toLowerCase(Locale.ROOT).startsWith("email,")) {
+                    return;
+                }
+                String[] columns = line.split(",", -1);
+                if (columns.length != 3 || !Customer.isValidEmail(normalizeEmail(columns[0]))) {
+                    rejectedRows.add(line);
+                    return;
+                }
+                Customer customer = new Customer(columns[1].trim(), columns[2].trim(), normalizeEmail(columns[0]));
+                long sequence = register(customer, currentJournal);
+                if (sequence < 0) {
+                    duplicates.increment();
+                    return;
+                }
+                imported.increment();
+                lastSequence.accumulate(sequence);
+                registered.add(customer);
+            });
+        }
+        if (currentJournal != null) {
+            try {
+                currentJournal.awaitDurable(lastSequence.get());
+            } catch (RuntimeException e) {
+                registered.forEach(customer -> mapOfCustomer.remove(customer.getEmail(), customer));
+                throw e;
+            }
+        }
+        return new CustomerImportReport(imported.intValue(), duplicates.intValue(), new ArrayList<>(rejectedRows),
+                System.nanoTime() - start);
     }
 
     public Customer getCustomer(String email){
-        return mapOfCustomer.get(email);
+        return email == null ? null : mapOfCustomer.get(normalizeEmail(email));
     }
 
     public Collection<Customer> getAllCustomers(){
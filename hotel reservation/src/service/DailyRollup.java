@@ -0,0 +1,270 @@
+package service;
+
+import model.IRoom;
+import model.Reservation;
+import model.RoomType;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+// Room nights sold and revenue per room type per night, kept up to date as
+// stays are booked and cancelled. Revenue uses each stay's booked price, so a
+// report sums a few hundred counters per type instead of rescanning the
+// reservation history.
+//
+// Like LongAdder cells, the counters are split into stripes by room number,
+// so bookings of different rooms rarely share a lock. Readers add the stripes
+// up; sold counts are read without locking. Each stripe keeps only the
+// 64-night chunks that hold bookings, so one stay years away costs a chunk,
+// not every night in between.
+class DailyRollup {
+
+    private static final RoomType[] ROOM_TYPES = RoomType.values();
+    private static final int STRIPES = 16;
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_NIGHTS = 1 << CHUNK_SHIFT;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private volatile SoldListener listener;
+
+    DailyRollup() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    // Told about every night whose count changed, after the change and outside
+    // the rollup's locks, so it can read the new count back with sold().
+    interface SoldListener {
+        void soldChanged(RoomType roomType, int night);
+    }
+
+    // Builds the rollup from every live row of the store with one fork-join pass.
+    public static DailyRollup scan(ReservationStore store) {
+        return IntStream.range(0, store.size()).parallel().collect(DailyRollup::new, (rollup, row) -> {
+            if (!store.isCancelled(row)) {
+                IRoom room = store.room(row);
+                rollup.stripeOf(room).apply(room.getRoomType(), store.price(row), store.checkInDay(row),
+                        store.checkOutDay(row), 1);
+            }
+        }, DailyRollup::addAll);
+    }
+
+    public void add(Reservation reservation) {
+        update(reservation, 1);
+    }
+
+    public void remove(Reservation reservation) {
+        update(reservation, -1);
+    }
+
+    public void setListener(SoldListener soldListener) {
+        listener = soldListener;
+    }
+
+    public void replaceWith(DailyRollup other) {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i].replaceWith(other.stripes[i]);
+        }
+    }
+
+    public int sold(RoomType roomType, int night) {
+        int sold = 0;
+        for (Stripe stripe : stripes) {
+            sold += stripe.sold(roomType.ordinal(), night);
+        }
+        return sold;
+    }
+
+    // Stripes are read one at a time, so a report taken while bookings run may
+    // include a stay in one stripe and miss one made just before it in another.
+    public OccupancyReport report(LocalDate from, LocalDate to, Map<RoomType, Integer> roomsByType) {
+        int fromNight = (int) from.toEpochDay();
+        int nights = (int) (to.toEpochDay() - fromNight);
+        long[] roomsSoldByNight = new long[nights];
+        long[] roomNightsSold = new long[ROOM_TYPES.length];
+        double[] revenue = new double[ROOM_TYPES.length];
+        for (Stripe stripe : stripes) {
+            stripe.addTo(fromNight, nights, roomsSoldByNight, roomNightsSold, revenue);
+        }
+        int rooms = 0;
+        Map<RoomType, RoomTypeStats> statsByType = new EnumMap<>(RoomType.class);
+        for (RoomType roomType : ROOM_TYPES) {
+            int typeRooms = roomsByType.getOrDefault(roomType, 0);
+            rooms += typeRooms;
+            statsByType.put(roomType, new RoomTypeStats(roomType, (long) typeRooms * nights,
+                    roomNightsSold[roomType.ordinal()], revenue[roomType.ordinal()]));
+        }
+        return new OccupancyReport(from, to, rooms, roomsSoldByNight, statsByType);
+    }
+
+    private void update(Reservation reservation, int sign) {
+        IRoom room = reservation.getiRoom();
+        RoomType roomType = room.getRoomType();
+        stripeOf(room).apply(roomType, reservation.getPrice(), reservation.getCheckInDay(),
+                reservation.getCheckOutDay(), sign);
+        SoldListener current = listener;
+        if (current != null) {
+            for (int night = reservation.getCheckInDay(); night < reservation.getCheckOutDay(); night++) {
+                current.soldChanged(roomType, night);
+            }
+        }
+    }
+
+    private Stripe stripeOf(IRoom room) {
+        return stripes[Math.floorMod(room.getRoomNumber().hashCode(), STRIPES)];
+    }
+
+    private void addAll(DailyRollup other) {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i].addAll(other.stripes[i]);
+        }
+    }
+
+    // Writers hold the stripe's lock. Nights are kept in chunks of 64 found
+    // through a sorted directory, as in OccupancyCalendar, so only nights that
+    // have bookings take space and a far-future stay adds one chunk. A chunk is
+    // dropped once its last stay is removed. Sold counts are atomic ints so
+    // sold() can read them without the lock; adding or dropping a chunk
+    // publishes a new directory.
+    private static final class Stripe {
+        private volatile Chunks chunks = Chunks.NONE;
+
+        int sold(int type, int night) {
+            Chunks current = chunks;
+            int slot = Arrays.binarySearch(current.keys, night >> CHUNK_SHIFT);
+            return slot < 0 ? 0 : current.chunks[slot].sold.get(type * CHUNK_NIGHTS + (night & (CHUNK_NIGHTS - 1)));
+        }
+
+        synchronized void apply(RoomType roomType, double price, int checkInDay, int checkOutDay, int sign) {
+            if (checkOutDay <= checkInDay) {
+                return;
+            }
+            int lastKey = (checkOutDay - 1) >> CHUNK_SHIFT;
+            for (int key = checkInDay >> CHUNK_SHIFT; key <= lastKey; key++) {
+                Chunk chunk = sign > 0 ? chunkFor(key) : chunkAt(key);
+                if (chunk == null) {
+                    continue;
+                }
+                int from = Math.max(checkInDay, key << CHUNK_SHIFT);
+                int to = Math.min(checkOutDay, (key + 1) << CHUNK_SHIFT);
+                chunk.add(roomType.ordinal(), from & (CHUNK_NIGHTS - 1), to - from, sign, price);
+                if (chunk.roomNights == 0) {
+                    drop(key);
+                }
+            }
+        }
+
+        synchronized void addTo(int fromNight, int nights, long[] roomsSoldByNight, long[] roomNightsSold,
+                                double[] revenueByType) {
+            Chunks current = chunks;
+            int toNight = fromNight + nights;
+            int slot = Arrays.binarySearch(current.keys, fromNight >> CHUNK_SHIFT);
+            for (slot = slot < 0 ? -slot - 1 : slot; slot < current.keys.length; slot++) {
+                int chunkStart = current.keys[slot] << CHUNK_SHIFT;
+                if (chunkStart >= toNight) {
+                    break;
+                }
+                Chunk chunk = current.chunks[slot];
+                int from = Math.max(fromNight, chunkStart);
+                int to = Math.min(toNight, chunkStart + CHUNK_NIGHTS);
+                for (int type = 0; type < ROOM_TYPES.length; type++) {
+                    for (int night = from; night < to; night++) {
+                        int cell = type * CHUNK_NIGHTS + night - chunkStart;
+                        int count = chunk.sold.get(cell);
+                        roomsSoldByNight[night - fromNight] += count;
+                        roomNightsSold[type] += count;
+                        revenueByType[type] += chunk.revenue[cell];
+                    }
+                }
+            }
+        }
+
+        synchronized void addAll(Stripe other) {
+            Chunks from = other.chunks;
+            for (int slot = 0; slot < from.keys.length; slot++) {
+                Chunk source = from.chunks[slot];
+                Chunk target = chunkFor(from.keys[slot]);
+                for (int cell = 0; cell < source.revenue.length; cell++) {
+                    target.sold.addAndGet(cell, source.sold.get(cell));
+                    target.revenue[cell] += source.revenue[cell];
+                }
+                target.roomNights += source.roomNights;
+            }
+        }
+
+        synchronized void replaceWith(Stripe other) {
+            chunks = other.chunks;
+        }
+
+        private Chunk chunkAt(int key) {
+            Chunks current = chunks;
+            int slot = Arrays.binarySearch(current.keys, key);
+            return slot < 0 ? null : current.chunks[slot];
+        }
+
+        private Chunk chunkFor(int key) {
+            Chunks current = chunks;
+            int slot = Arrays.binarySearch(current.keys, key);
+            if (slot >= 0) {
+                return current.chunks[slot];
+            }
+            slot = -slot - 1;
+            Chunk chunk = new Chunk();
+            int[] keys = new int[current.keys.length + 1];
+            Chunk[] grown = new Chunk[keys.length];
+            System.arraycopy(current.keys, 0, keys, 0, slot);
+            System.arraycopy(current.chunks, 0, grown, 0, slot);
+            keys[slot] = key;
+            grown[slot] = chunk;
+            System.arraycopy(current.keys, slot, keys, slot + 1, current.keys.length - slot);
+            System.arraycopy(current.chunks, slot, grown, slot + 1, current.keys.length - slot);
+            chunks = new Chunks(keys, grown);
+            return chunk;
+        }
+
+        private void drop(int key) {
+            Chunks current = chunks;
+            int slot = Arrays.binarySearch(current.keys, key);
+            int[] keys = new int[current.keys.length - 1];
+            Chunk[] shrunk = new Chunk[keys.length];
+            System.arraycopy(current.keys, 0, keys, 0, slot);
+            System.arraycopy(current.chunks, 0, shrunk, 0, slot);
+            System.arraycopy(current.keys, slot + 1, keys, slot, keys.length - slot);
+            System.arraycopy(current.chunks, slot + 1, shrunk, slot, keys.length - slot);
+            chunks = new Chunks(keys, shrunk);
+        }
+    }
+
+    // Sorted chunk keys (night >> CHUNK_SHIFT) and their chunks.
+    private static final class Chunks {
+        static final Chunks NONE = new Chunks(new int[0], new Chunk[0]);
+
+        final int[] keys;
+        final Chunk[] chunks;
+
+        Chunks(int[] keys, Chunk[] chunks) {
+            this.keys = keys;
+            this.chunks = chunks;
+        }
+    }
+
+    // 64 nights of every type, one cell per type and night. roomNights counts
+    // the booked nights in the chunk so an emptied chunk can be dropped.
+    private static final class Chunk {
+        final AtomicIntegerArray sold = new AtomicIntegerArray(ROOM_TYPES.length * CHUNK_NIGHTS);
+        final double[] revenue = new double[ROOM_TYPES.length * CHUNK_NIGHTS];
+        int roomNights;
+
+        void add(int type, int firstCell, int nights, int sign, double price) {
+            int cell = type * CHUNK_NIGHTS + firstCell;
+            for (int night = 0; night < nights; night++, cell++) {
+                sold.set(cell, sold.get(cell) + sign);
+                revenue[cell] += sign * price;
+            }
+            roomNights += sign * nights;
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package service;
+
+import metrics.HotelMetrics;
+import model.Customer;
+import model.IRoom;
+import model.Reservation;
+import model.RoomType;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// One hotel property: its customers, rooms and reservations, and optionally
+// the journal that keeps them across restarts. Engines share no state, so
+// several properties can be hosted side by side in one process.
+//
+// With more than one shard the rooms are partitioned by room number across
+// single-threaded workers. Room-specific calls go to the owning worker and
+// searches are scattered to every worker and gathered back together.
+//
+// The waitlist lives here rather than in a shard, so a waiting guest can be
+// given a room from any shard when one is cancelled or added. Allocation runs
+// on its own thread after the call that freed the room returns.
+public class HotelEngine implements Closeable {
+
+    private final CustomerService customerService = new CustomerService();
+    private final HotelMetrics metrics = new HotelMetrics();
+    private final Waitlist waitlist = new Waitlist();
+    private final ExecutorService allocator = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hotel-waitlist");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ReservationService[] shards;
+    private final ShardWorker[] workers;
+    private ReservationJournal journal;
+
+    public HotelEngine() {
+        this(1);
+    }
+
+    public HotelEngine(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Error, a hotel needs at least one shard.");
+        }
+        shards = new ReservationService[shardCount];
+        if (shardCount == 1) {
+            workers = null;
+            shards[0] = new ReservationService();
+        } else {
+            workers = new ShardWorker[shardCount];
+            for (int i = 0; i < shardCount; i++) {
+                workers[i] = new ShardWorker("reservation-shard-" + i);
+                shards[i] = workers[i].getReservationService();
+            }
+        }
+    }
+
+    // Journaled engines keep a single shard so the journal sees one ordered history.
+    public static HotelEngine open(Path dataDirectory) throws IOException {
+        HotelEngine engine = new HotelEngine();
+        ReservationService reservationService = engine.shards[0];
+        ReservationJournal journal = ReservationJournal.open(dataDirectory);
+        journal.recover(reservationService, engine.customerService);
+        reservationService.rebuildRollup();
+        reservationService.setJournal(journal);
+        engine.customerService.setJournal(journal);
+        journal.scheduleSnapshots(5, TimeUnit.MINUTES, reservationService, engine.customerService);
+        engine.journal = journal;
+        return engine;
+    }
+
+    public CustomerService getCustomerService() {
+        return customerService;
+    }
+
+    public HotelMetrics getMetrics() {
+        return metrics;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public void addRoom(IRoom room) {
+        join(onShard(room.getRoomNumber(), shard -> {
+            shard.addRoom(room);
+            return null;
+        }));
+        allocate(room.getRoomType(), (int) LocalDate.now().toEpochDay(), ReservationService.bookingWindowEndDay(),
+                Collections.singletonList(room));
+    }
+
+    public void addRooms(Collection<IRoom> rooms) {
+        List<List<IRoom>> roomsByShard = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            roomsByShard.add(new ArrayList<>());
+        }
+        for (IRoom room : rooms) {
+            roomsByShard.get(shardOf(room.getRoomNumber())).add(room);
+        }
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            List<IRoom> shardRooms = roomsByShard.get(i);
+            pending.add(onShard(i, shard -> {
+                shard.addRooms(shardRooms);
+                return null;
+            }));
+        }
+        pending.forEach(HotelEngine::join);
+        Map<RoomType, List<IRoom>> roomsByType = new EnumMap<>(RoomType.class);
+        for (IRoom room : rooms) {
+            roomsByType.computeIfAbsent(room.getRoomType(), type -> new ArrayList<>()).add(room);
+        }
+        int today = (int) LocalDate.now().toEpochDay();
+        int windowEnd = ReservationService.bookingWindowEndDay();
+        roomsByType.forEach((type, typeRooms) -> allocate(type, today, windowEnd, typeRooms));
+    }
+
+    public IRoom getARoom(String roomNumber) {
+        return join(onShard(roomNumber, shard -> shard.getARoom(roomNumber)));
+    }
+
+    public Reservation reserveARoom(Customer customer, IRoom room, LocalDate checkInDate, LocalDate checkOutDate) {
+        if (room == null) {
+            throw new IllegalArgumentException("Error, no room found with that number.");
+        }
+        return join(onShard(room.getRoomNumber(),
+                shard -> shard.reserveARoom(customer, room, checkInDate, checkOutDate)));
+    }
+
+    public Reservation cancelReservation(Customer customer, IRoom room, LocalDate checkInDate) {
+        if (room == null) {
+            throw new IllegalArgumentException("Error, no room found with that number.");
+        }
+        Reservation cancelled = join(onShard(room.getRoomNumber(),
+                shard -> shard.cancelReservation(customer, room, checkInDate)));
+        allocate(room.getRoomType(), cancelled.getCheckInDay(), cancelled.getCheckOutDay(),
+                Collections.singletonList(room));
+        return cancelled;
+    }
+
+    public Reservation changeReservationDates(Customer customer, IRoom room, LocalDate checkInDate,
+                                              LocalDate newCheckInDate, LocalDate newCheckOutDate) {
+        if (room == null) {
+            throw new IllegalArgumentException("Error, no room found with that number.");
+        }
+        ReservationService.DateChange change = join(onShard(room.getRoomNumber(),
+                shard -> shard.changeDates(customer, room, checkInDate, newCheckInDate, newCheckOutDate)));
+        allocate(room.getRoomType(), change.previous.getCheckInDay(), change.previous.getCheckOutDay(),
+                Collections.singletonList(room));
+        return change.moved;
+    }
+
+    // Queues the guest for any room of the type, first trying the rooms free right now
+    // so a room freed since the guest's search is not missed.
+    public WaitlistRequest joinWaitlist(Customer customer, RoomType roomType, LocalDate checkInDate,
+                                        LocalDate checkOutDate, int priority) {
+        if (customer == null) {
+            throw new IllegalArgumentException("Error, no account found for that email.");
+        }
+        if (roomType == null) {
+            throw new IllegalArgumentException("Error, choose a room type to wait for.");
+        }
+        // Held to the same dates as a booking, since the request may turn into one.
+        ReservationService.checkStayDates(checkInDate, checkOutDate);
+        WaitlistRequest request = waitlist.add(customer, roomType, (int) checkInDate.toEpochDay(),
+                (int) checkOutDate.toEpochDay(), priority, (int) LocalDate.now().toEpochDay());
+        Collection<IRoom> free = findRooms(new RoomSearch.Builder(checkInDate, checkOutDate).setRoomType(roomType).build());
+        allocate(roomType, request.getCheckInDay(), request.getCheckOutDay(), free);
+        return request;
+    }
+
+    public void leaveWaitlist(WaitlistRequest request) {
+        waitlist.remove(request);
+        request.getAllocation().cancel(false);
+    }
+
+    public int waitlistSize() {
+        return waitlist.size();
+    }
+
+    public Collection<IRoom> findRooms(LocalDate checkInDate, LocalDate checkOutDate) {
+        return gather(shard -> shard.findRooms(checkInDate, checkOutDate));
+    }
+
+    public Collection<IRoom> findRooms(RoomSearch search) {
+        return gather(shard -> shard.findRooms(search));
+    }
+
+    public List<AlternativeStay> alternativeStays(LocalDate checkInDate, LocalDate checkOutDate, int maxShiftDays) {
+        Collection<AlternativeStay> parts = gather(shard -> shard.alternativeStays(checkInDate, checkOutDate, maxShiftDays));
+        if (workers == null) {
+            return new ArrayList<>(parts);
+        }
+        Map<LocalDate, List<IRoom>> roomsByCheckIn = new HashMap<>();
+        for (AlternativeStay part : parts) {
+            roomsByCheckIn.computeIfAbsent(part.getCheckInDate(), date -> new ArrayList<>()).addAll(part.getRooms());
+        }
+        long nights = checkOutDate.toEpochDay() - checkInDate.toEpochDay();
+        List<AlternativeStay> alternatives = new ArrayList<>();
+        roomsByCheckIn.forEach((checkIn, rooms) ->
+                alternatives.add(new AlternativeStay(checkIn, checkIn.plusDays(nights), rooms)));
+        alternatives.sort(Comparator.comparingLong((AlternativeStay stay) -> Math.abs(stay.daysFrom(checkInDate)))
+                .thenComparing(AlternativeStay::getCheckInDate));
+        return alternatives;
+    }
+
+    public RoomFacets roomFacets() {
+        List<CompletableFuture<RoomFacets>> parts = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            parts.add(onShard(i, ReservationService::roomFacets));
+        }
+        List<RoomFacets> facets = new ArrayList<>();
+        for (CompletableFuture<RoomFacets> part : parts) {
+            facets.add(join(part));
+        }
+        return RoomFacets.merge(facets);
+    }
+
+    public void setPricingRules(PricingRules pricingRules) {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            pending.add(onShard(i, shard -> {
+                shard.setPricingRules(pricingRules);
+                return null;
+            }));
+        }
+        pending.forEach(HotelEngine::join);
+    }
+
+    // Occupancy tiers use the occupancy of the room's shard, which tracks the
+    // hotel's closely as rooms are spread evenly across shards.
+    public double quote(IRoom room, LocalDate checkInDate, LocalDate checkOutDate) {
+        if (room == null) {
+            throw new IllegalArgumentException("Error, no room found with that number.");
+        }
+        return join(onShard(room.getRoomNumber(), shard -> shard.quote(room, checkInDate, checkOutDate)));
+    }
+
+    public OccupancyReport occupancyReport(LocalDate from, LocalDate to) {
+        List<CompletableFuture<OccupancyReport>> parts = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            parts.add(onShard(i, shard -> shard.occupancyReport(from, to)));
+        }
+        List<OccupancyReport> reports = new ArrayList<>();
+        for (CompletableFuture<OccupancyReport> part : parts) {
+            reports.add(join(part));
+        }
+        return OccupancyReport.merge(reports);
+    }
+
+    public Collection<Reservation> getCustomersReservation(Customer customer) {
+        return gather(shard -> shard.getCustomersReservation(customer));
+    }
+
+    public Collection<IRoom> allRooms() {
+        return gather(ReservationService::allRooms);
+    }
+
+    public Collection<Reservation> allReservations() {
+        return gather(ReservationService::allReservations);
+    }
+
+    // Writes one page of the export; the stores are read without locking, so
+    // bookings keep flowing while a large history is dumped.
+    public ReservationExportPage exportReservations(ReservationExport export, Writer out) throws IOException {
+        return new ReservationExporter(export, out).export(shards);
+    }
+
+    public ReservationExportPage exportReservations(ReservationExport export, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), 1 << 16)) {
+            return exportReservations(export, out);
+        }
+    }
+
+    public void snapshot() throws IOException {
+        if (journal != null) {
+            journal.snapshot(shards[0], customerService);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        metrics.stopReporting();
+        // Let queued allocations finish while the shards and the journal are still open.
+        allocator.shutdown();
+        try {
+            allocator.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (workers != null) {
+            for (ShardWorker worker : workers) {
+                worker.shutdown();
+            }
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    // Offers the rooms to the waiting stays that overlap [fromDay, toDay), best
+    // waiter first. Passes run one at a time on the allocator thread.
+    //
+    // A room can take at most one new stay per check-in night, so each night
+    // offers only its best rooms.size() waiters. Rooms that were just added
+    // are free on every night, and their passes cover the booking window
+    // rather than every night the waitlist could hold.
+    private void allocate(RoomType roomType, int fromDay, int toDay, Collection<IRoom> rooms) {
+        if (rooms.isEmpty()) {
+            return;
+        }
+        List<IRoom> offered = new ArrayList<>(rooms);
+        try {
+            allocator.execute(() -> allocateNow(roomType, fromDay, toDay, offered));
+        } catch (RejectedExecutionException e) {
+            // the engine is closing; waiters stay queued
+        }
+    }
+
+    // Each waiter is claimed before booking so no guest is booked twice. The
+    // pass books every waiter it can, then waits once for the journal before
+    // telling any guest, so a busy pass costs one fsync instead of one each.
+    // It stops once the offered room nights in [fromDay, toDay) are all taken.
+    private void allocateNow(RoomType roomType, int fromDay, int toDay, List<IRoom> rooms) {
+        Map<Integer, List<IRoom>> roomsByShard = new TreeMap<>();
+        for (IRoom room : rooms) {
+            roomsByShard.computeIfAbsent(shardOf(room.getRoomNumber()), shard -> new ArrayList<>()).add(room);
+        }
+        Map<WaitlistRequest, Reservation> booked = new LinkedHashMap<>();
+        long sequence = 0;
+        long freeNights = (long) rooms.size() * (toDay - fromDay);
+        for (WaitlistRequest request : waitlist.candidates(roomType, fromDay, toDay,
+                (int) LocalDate.now().toEpochDay(), rooms.size())) {
+            if (freeNights <= 0) {
+                break;
+            }
+            if (!waitlist.remove(request)) {
+                continue;
+            }
+            Reservation reservation = null;
+            for (Map.Entry<Integer, List<IRoom>> shardRooms : roomsByShard.entrySet()) {
+                try {
+                    ReservationService.Booking booking = join(onShard(shardRooms.getKey(), shard -> shard.bookFirstFree(
+                            request.getCustomer(), shardRooms.getValue(), request.getCheckInDay(),
+                            request.getCheckOutDay())));
+                    if (booking != null) {
+                        sequence = Math.max(sequence, booking.sequence);
+                        reservation = booking.reservation;
+                        break;
+                    }
+                } catch (RuntimeException e) {
+                    request.getAllocation().completeExceptionally(e);
+                    break;
+                }
+            }
+            if (reservation != null) {
+                booked.put(request, reservation);
+                freeNights -= Math.min(toDay, reservation.getCheckOutDay()) - Math.max(fromDay, reservation.getCheckInDay());
+            } else if (!request.getAllocation().isDone()) {
+                waitlist.putBack(request);
+            }
+        }
+        if (booked.isEmpty()) {
+            return;
+        }
+        if (journal != null) {
+            try {
+                journal.awaitDurable(sequence);
+            } catch (RuntimeException e) {
+                booked.forEach((request, reservation) -> {
+                    join(onShard(reservation.getiRoom().getRoomNumber(), shard -> {
+                        shard.undo(reservation);
+                        return null;
+                    }));
+                    request.getAllocation().completeExceptionally(e);
+                });
+                return;
+            }
+        }
+        List<IRoom> released = new ArrayList<>();
+        booked.forEach((request, reservation) -> {
+            if (!request.getAllocation().complete(reservation)) {
+                // The guest left the waitlist while we were booking.
+                IRoom room = reservation.getiRoom();
+                try {
+                    join(onShard(room.getRoomNumber(), shard ->
+                            shard.cancelReservation(reservation.getCustomer(), room, reservation.getCheckInDate())));
+                    released.add(room);
+                } catch (RuntimeException e) {
+                    System.err.println("Could not release unclaimed waitlist booking: " + e.getMessage());
+                }
+            }
+        });
+        if (!released.isEmpty()) {
+            allocate(roomType, fromDay, toDay, released);
+        }
+    }
+
+    private int shardOf(String roomNumber) {
+        return Math.floorMod(roomNumber.hashCode(), shards.length);
+    }
+
+    private <T> CompletableFuture<T> onShard(String roomNumber, Function<ReservationService, T> call) {
+        return onShard(shardOf(roomNumber), call);
+    }
+
+    private <T> CompletableFuture<T> onShard(int shard, Function<ReservationService, T> call) {
+        if (workers == null) {
+            try {
+                return CompletableFuture.completedFuture(call.apply(shards[shard]));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return workers[shard].submit(() -> call.apply(shards[shard]));
+    }
+
+    private <T> Collection<T> gather(Function<ReservationService, Collection<T>> call) {
+        if (workers == null) {
+            return call.apply(shards[0]);
+        }
+        List<CompletableFuture<Collection<T>>> parts = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            parts.add(onShard(i, call));
+        }
+        List<T> merged = new ArrayList<>();
+        for (CompletableFuture<Collection<T>> part : parts) {
+            merged.addAll(join(part));
+        }
+        return merged;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package service;
+
+import java.util.Arrays;
+
+// Immutable sorted map from int keys to non-negative int values, as a B+tree
+// whose nodes keep up to MAX_ENTRIES keys in primitive arrays. put and remove
+// copy only the nodes on the path to one leaf, so an update is O(log n) with
+// bounded-size copies, and every older version stays valid for the readers
+// still holding it.
+final class IntTreeMap {
+
+    static final IntTreeMap EMPTY = new IntTreeMap(new Leaf(new int[0], new int[0]), 0);
+
+    private static final int MAX_ENTRIES = 32;
+    private static final int MIN_ENTRIES = MAX_ENTRIES / 4;
+
+    private final Node root;
+    private final int size;
+
+    private IntTreeMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Value stored under the key, or -1.
+    public int get(int key) {
+        Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node;
+            node = inner.children[inner.childFor(key)];
+        }
+        Leaf leaf = (Leaf) node;
+        int index = Arrays.binarySearch(leaf.keys, key);
+        return index < 0 ? -1 : leaf.values[index];
+    }
+
+    // Value of the greatest key below the given one, or -1.
+    public int lowerValue(int key) {
+        return lowerValue(root, key);
+    }
+
+    public IntTreeMap put(int key, int value) {
+        boolean[] added = new boolean[1];
+        Node[] split = put(root, key, value, added);
+        Node newRoot = split.length == 1 ? split[0] : Inner.of(split[0], split[1]);
+        return new IntTreeMap(newRoot, added[0] ? size + 1 : size);
+    }
+
+    public IntTreeMap remove(int key) {
+        Node newRoot = remove(root, key);
+        if (newRoot == root) {
+            return this;
+        }
+        while (newRoot instanceof Inner && newRoot.entries() == 1) {
+            newRoot = ((Inner) newRoot).children[0];
+        }
+        return new IntTreeMap(newRoot, size - 1);
+    }
+
+    // Every value in key order.
+    public int[] values() {
+        int[] values = new int[size];
+        collect(root, values, 0);
+        return values;
+    }
+
+    private static int lowerValue(Node node, int key) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int index = Arrays.binarySearch(leaf.keys, key);
+            int position = index < 0 ? -index - 1 : index;
+            return position > 0 ? leaf.values[position - 1] : -1;
+        }
+        Inner inner = (Inner) node;
+        int child = inner.childFor(key);
+        int value = lowerValue(inner.children[child], key);
+        return value >= 0 || child == 0 ? value : lastValue(inner.children[child - 1]);
+    }
+
+    // One node, or two when the node had to split.
+    private static Node[] put(Node node, int key, int value, boolean[] added) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int index = Arrays.binarySearch(leaf.keys, key);
+            if (index >= 0) {
+                int[] values = leaf.values.clone();
+                values[index] = value;
+                return new Node[] {new Leaf(leaf.keys, values)};
+            }
+            added[0] = true;
+            int position = -index - 1;
+            return new Leaf(insert(leaf.keys, position, key), insert(leaf.values, position, value)).splitIfFull();
+        }
+        Inner inner = (Inner) node;
+        int child = inner.childFor(key);
+        Node[] split = put(inner.children[child], key, value, added);
+        if (split.length == 1) {
+            Node[] children = inner.children.clone();
+            children[child] = split[0];
+            return new Node[] {new Inner(inner.keys, children)};
+        }
+        Node[] children = new Node[inner.children.length + 1];
+        System.arraycopy(inner.children, 0, children, 0, child);
+        children[child] = split[0];
+        children[child + 1] = split[1];
+        System.arraycopy(inner.children, child + 1, children, child + 2, inner.children.length - child - 1);
+        return new Inner(insert(inner.keys, child, firstKey(split[1])), children).splitIfFull();
+    }
+
+    // Returns the same node when the key is absent. Children left with fewer
+    // than MIN_ENTRIES are merged with a neighbour, or share its entries.
+    private static Node remove(Node node, int key) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int index = Arrays.binarySearch(leaf.keys, key);
+            return index < 0 ? node : new Leaf(delete(leaf.keys, index), delete(leaf.values, index));
+        }
+        Inner inner = (Inner) node;
+        int child = inner.childFor(key);
+        Node updated = remove(inner.children[child], key);
+        if (updated == inner.children[child]) {
+            return node;
+        }
+        Node[] children = inner.children.clone();
+        children[child] = updated;
+        if (updated.entries() >= MIN_ENTRIES || children.length == 1) {
+            return new Inner(inner.keys, children);
+        }
+        int left = child > 0 ? child - 1 : child;
+        Node[] rebalanced = children[left].join(children[left + 1]).splitIfFull();
+        int[] keys;
+        if (rebalanced.length == 1) {
+            children = delete(children, left + 1);
+            children[left] = rebalanced[0];
+            keys = delete(inner.keys, left);
+        } else {
+            children[left] = rebalanced[0];
+            children[left + 1] = rebalanced[1];
+            keys = inner.keys.clone();
+            keys[left] = firstKey(rebalanced[1]);
+        }
+        return new Inner(keys, children);
+    }
+
+    private static int collect(Node node, int[] values, int offset) {
+        if (node instanceof Leaf) {
+            int[] leafValues = ((Leaf) node).values;
+            System.arraycopy(leafValues, 0, values, offset, leafValues.length);
+            return offset + leafValues.length;
+        }
+        for (Node child : ((Inner) node).children) {
+            offset = collect(child, values, offset);
+        }
+        return offset;
+    }
+
+    // Only called on nodes below the root, which are never empty.
+    private static int firstKey(Node node) {
+        while (node instanceof Inner) {
+            node = ((Inner) node).children[0];
+        }
+        return node.keys[0];
+    }
+
+    private static int lastValue(Node node) {
+        while (node instanceof Inner) {
+            Node[] children = ((Inner) node).children;
+            node = children[children.length - 1];
+        }
+        int[] values = ((Leaf) node).values;
+        return values[values.length - 1];
+    }
+
+    private static int[] insert(int[] values, int position, int value) {
+        int[] grown = new int[values.length + 1];
+        System.arraycopy(values, 0, grown, 0, position);
+        grown[position] = value;
+        System.arraycopy(values, position, grown, position + 1, values.length - position);
+        return grown;
+    }
+
+    private static int[] delete(int[] values, int position) {
+        int[] shrunk = new int[values.length - 1];
+        System.arraycopy(values, 0, shrunk, 0, position);
+        System.arraycopy(values, position + 1, shrunk, position, shrunk.length - position);
+        return shrunk;
+    }
+
+    private static Node[] delete(Node[] nodes, int position) {
+        Node[] shrunk = new Node[nodes.length - 1];
+        System.arraycopy(nodes, 0, shrunk, 0, position);
+        System.arraycopy(nodes, position + 1, shrunk, position, shrunk.length - position);
+        return shrunk;
+    }
+
+    private abstract static class Node {
+        final int[] keys;
+
+        Node(int[] keys) {
+            this.keys = keys;
+        }
+
+        // Keys in a leaf, children in an inner node.
+        abstract int entries();
+
+        // This node's entries followed by a right neighbour's, possibly over MAX_ENTRIES.
+        abstract Node join(Node right);
+
+        // Itself, or two halves when over MAX_ENTRIES.
+        abstract Node[] splitIfFull();
+    }
+
+    private static final class Leaf extends Node {
+        final int[] values;
+
+        Leaf(int[] keys, int[] values) {
+            super(keys);
+            this.values = values;
+        }
+
+        @Override
+        int entries() {
+            return keys.length;
+        }
+
+        @Override
+        Node join(Node right) {
+            Leaf leaf = (Leaf) right;
+            int[] joinedKeys = Arrays.copyOf(keys, keys.length + leaf.keys.length);
+            int[] joinedValues = Arrays.copyOf(values, values.length + leaf.values.length);
+            System.arraycopy(leaf.keys, 0, joinedKeys, keys.length, leaf.keys.length);
+            System.arraycopy(leaf.values, 0, joinedValues, values.length, leaf.values.length);
+            return new Leaf(joinedKeys, joinedValues);
+        }
+
+        @Override
+        Node[] splitIfFull() {
+            if (keys.length <= MAX_ENTRIES) {
+                return new Node[] {this};
+            }
+            int half = keys.length / 2;
+            return new Node[] {
+                    new Leaf(Arrays.copyOfRange(keys, 0, half), Arrays.copyOfRange(values, 0, half)),
+                    new Leaf(Arrays.copyOfRange(keys, half, keys.length),
+                            Arrays.copyOfRange(values, half, values.length))};
+        }
+    }
+
+    // keys[i] separates children[i] from children[i + 1]: every key in
+    // children[i + 1] and beyond is at least keys[i].
+    private static final class Inner extends Node {
+        final Node[] children;
+
+        Inner(int[] keys, Node[] children) {
+            super(keys);
+            this.children = children;
+        }
+
+        static Inner of(Node left, Node right) {
+            return new Inner(new int[] {firstKey(right)}, new Node[] {left, right});
+        }
+
+        int childFor(int key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index < 0 ? -index - 1 : index + 1;
+        }
+
+        @Override
+        int entries() {
+            return children.length;
+        }
+
+        @Override
+        Node join(Node right) {
+            Inner inner = (Inner) right;
+            int[] joinedKeys = Arrays.copyOf(keys, keys.length + 1 + inner.keys.length);
+            joinedKeys[keys.length] = firstKey(inner);
+            System.arraycopy(inner.keys, 0, joinedKeys, keys.length + 1, inner.keys.length);
+            Node[] joinedChildren = Arrays.copyOf(children, children.length + inner.children.length);
+            System.arraycopy(inner.children, 0, joinedChildren, children.length, inner.children.length);
+            return new Inner(joinedKeys, joinedChildren);
+        }
+
+        @Override
+        Node[] splitIfFull() {
+            if (children.length <= MAX_ENTRIES) {
+                return new Node[] {this};
+            }
+            int half = children.length / 2;
+            return new Node[] {
+                    new Inner(Arrays.copyOfRange(keys, 0, half - 1), Arrays.copyOfRange(children, 0, half)),
+                    new Inner(Arrays.copyOfRange(keys, half, keys.length),
+                            Arrays.copyOfRange(children, half, children.length))};
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package service;
+
+import java.io.IOException;
+
+// JSON string quoting shared by the HTTP API and the reservation export.
+public final class JsonStrings {
+
+    private JsonStrings() {
+    }
+
+    public static StringBuilder quote(StringBuilder out, String value) {
+        try {
+            quote((Appendable) out, value);
+        } catch (IOException e) {
+            // StringBuilder never throws
+            throw new AssertionError(e);
+        }
+        return out;
+    }
+
+    public static void quote(Appendable out, String value) throws IOException {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
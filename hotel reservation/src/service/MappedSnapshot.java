@@ -0,0 +1,346 @@
+package service;
+
+import model.Customer;
+import model.FreeRoom;
+import model.IRoom;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+
+// Read-only image of the hotel that is served straight from a memory-mapped
+// file, so a cold process can answer lookups without loading it onto the heap.
+// The reservation journal writes its snapshots in this format.
+//
+// Layout (big-endian):
+//   header    magic, counts, section offsets and the journal segment to replay from
+//   rooms     24 bytes each, sorted by room number:
+//             numberRef, price, type, free, pad, firstStay, stayCount
+//   customers 12 bytes each, sorted by email: emailRef, firstNameRef, lastNameRef
+//   stays     28 bytes each, grouped by room and sorted by check-in:
+//             roomIndex, customerIndex, checkInDay, checkOutDay, booked price,
+//             booked room type, pad
+//   strings   int length + UTF-8 bytes, referenced by offset into this section
+//
+// A stay keeps the type its room had when it was booked, since the room may
+// have been retyped since.
+public class MappedSnapshot implements Closeable {
+
+    private static final long MAGIC = 0x484F54454C4D5032L;
+    private static final int HEADER_BYTES = 48;
+    private static final int ROOM_BYTES = 24;
+    private static final int CUSTOMER_BYTES = 12;
+    private static final int STAY_BYTES = 28;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int roomCount;
+    private final int customerCount;
+    private final int stayCount;
+    private final int roomsOffset;
+    private final int customersOffset;
+    private final int staysOffset;
+    private final int stringsOffset;
+    private final int replaySegment;
+
+    private MappedSnapshot(FileChannel channel) throws IOException {
+        if (channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot larger than 2GB cannot be mapped in one piece.");
+        }
+        this.channel = channel;
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (buffer.getLong(0) != MAGIC) {
+            throw new IOException("Not a mapped hotel snapshot.");
+        }
+        roomCount = buffer.getInt(8);
+        customerCount = buffer.getInt(12);
+        stayCount = buffer.getInt(16);
+        roomsOffset = buffer.getInt(20);
+        customersOffset = buffer.getInt(24);
+        staysOffset = buffer.getInt(28);
+        stringsOffset = buffer.getInt(32);
+        replaySegment = buffer.getInt(36);
+    }
+
+    public static MappedSnapshot open(Path file) throws IOException {
+        return new MappedSnapshot(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    public static void write(Path file, ReservationService reservationService, CustomerService customerService)
+            throws IOException {
+        write(file, reservationService, customerService, 0);
+    }
+
+    static void write(Path file, ReservationService reservationService, CustomerService customerService,
+                      int replaySegment) throws IOException {
+        List<IRoom> rooms = new ArrayList<>(reservationService.allRooms());
+        List<Customer> customers = new ArrayList<>(customerService.getAllCustomers());
+        List<Reservation> stays = new ArrayList<>(reservationService.allReservations());
+
+        StringTable strings = new StringTable();
+        rooms.sort(Comparator.comparing(room -> utf8(room.getRoomNumber()), Arrays::compareUnsigned));
+        customers.sort(Comparator.comparing(customer -> utf8(customer.getEmail()), Arrays::compareUnsigned));
+        Map<String, Integer> roomIndex = new HashMap<>();
+        for (int i = 0; i < rooms.size(); i++) {
+            roomIndex.put(rooms.get(i).getRoomNumber(), i);
+        }
+        Map<String, Integer> customerIndex = new HashMap<>();
+        for (int i = 0; i < customers.size(); i++) {
+            customerIndex.put(customers.get(i).getEmail(), i);
+        }
+        stays.removeIf(stay -> !roomIndex.containsKey(stay.getiRoom().getRoomNumber())
+                || !customerIndex.containsKey(stay.getCustomer().getEmail()));
+        stays.sort(Comparator.comparingInt((Reservation stay) -> roomIndex.get(stay.getiRoom().getRoomNumber()))
+                .thenComparingInt(Reservation::getCheckInDay));
+        int[] firstStay = new int[rooms.size()];
+        int[] staysPerRoom = new int[rooms.size()];
+        for (int i = stays.size() - 1; i >= 0; i--) {
+            int room = roomIndex.get(stays.get(i).getiRoom().getRoomNumber());
+            firstStay[room] = i;
+            staysPerRoom[room]++;
+        }
+
+        long roomsOffset = HEADER_BYTES;
+        long customersOffset = roomsOffset + (long) rooms.size() * ROOM_BYTES;
+        long staysOffset = customersOffset + (long) customers.size() * CUSTOMER_BYTES;
+        long stringsOffset = staysOffset + (long) stays.size() * STAY_BYTES;
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temporary.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            out.writeLong(MAGIC);
+            out.writeInt(rooms.size());
+            out.writeInt(customers.size());
+            out.writeInt(stays.size());
+            out.writeInt((int) roomsOffset);
+            out.writeInt((int) customersOffset);
+            out.writeInt((int) staysOffset);
+            out.writeInt((int) stringsOffset);
+            out.writeInt(replaySegment);
+            out.write(new byte[HEADER_BYTES - 40]);
+            for (int i = 0; i < rooms.size(); i++) {
+                IRoom room = rooms.get(i);
+                out.writeInt(strings.add(room.getRoomNumber()));
+                out.writeDouble(room.getRoomPrice());
+                out.writeByte(room.getRoomType().ordinal());
+                out.writeBoolean(room.isFree());
+                out.writeShort(0);
+                out.writeInt(firstStay[i]);
+                out.writeInt(staysPerRoom[i]);
+            }
+            for (Customer customer : customers) {
+                out.writeInt(strings.add(customer.getEmail()));
+                out.writeInt(strings.add(customer.getFirstName()));
+                out.writeInt(strings.add(customer.getLastName()));
+            }
+            for (Reservation stay : stays) {
+                out.writeInt(roomIndex.get(stay.getiRoom().getRoomNumber()));
+                out.writeInt(customerIndex.get(stay.getCustomer().getEmail()));
+                out.writeInt(stay.getCheckInDay());
+                out.writeInt(stay.getCheckOutDay());
+                out.writeDouble(stay.getPrice());
+                out.writeByte(stay.getiRoom().getRoomType().ordinal());
+                out.write(new byte[STAY_BYTES - 25]);
+            }
+            if (stringsOffset + strings.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot larger than 2GB cannot be mapped in one piece.");
+            }
+            strings.writeTo(out);
+            out.flush();
+            stream.getFD().sync();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public int roomCount() {
+        return roomCount;
+    }
+
+    public int customerCount() {
+        return customerCount;
+    }
+
+    public int reservationCount() {
+        return stayCount;
+    }
+
+    int replaySegment() {
+        return replaySegment;
+    }
+
+    // Loads the whole image into empty services. Strings are decoded once per
+    // room and customer, not once per stay. A stay booked before its room was
+    // retyped is restored onto the room as it was then, so it is counted under
+    // the type it was booked as.
+    void restoreInto(ReservationService reservationService, CustomerService customerService) {
+        List<IRoom> rooms = new ArrayList<>(roomCount);
+        for (int i = 0; i < roomCount; i++) {
+            rooms.add(roomAt(i));
+        }
+        reservationService.addRooms(rooms);
+        IRoom[] restoredRooms = new IRoom[roomCount];
+        for (int i = 0; i < roomCount; i++) {
+            restoredRooms[i] = reservationService.getARoom(rooms.get(i).getRoomNumber());
+        }
+        Customer[] customers = new Customer[customerCount];
+        for (int i = 0; i < customerCount; i++) {
+            Customer customer = customerAt(i);
+            customerService.addCustomer(customer.getEmail(), customer.getFirstName(), customer.getLastName());
+            customers[i] = customerService.getCustomer(customer.getEmail());
+        }
+        for (int i = 0; i < stayCount; i++) {
+            int record = staysOffset + i * STAY_BYTES;
+            IRoom room = restoredRooms[buffer.getInt(record)];
+            room = ReservationService.asBooked(room, RoomType.values()[buffer.get(record + 24)]);
+            reservationService.restoreReservation(new Reservation(customers[buffer.getInt(record + 4)],
+                    room, buffer.getInt(record + 8), buffer.getInt(record + 12), buffer.getDouble(record + 16)));
+        }
+    }
+
+    public IRoom getARoom(String roomNumber) {
+        int index = search(roomsOffset, ROOM_BYTES, roomCount, utf8(roomNumber));
+        return index < 0 ? null : roomAt(index);
+    }
+
+    // Customers are stored under their normalized email, like CustomerService keys them.
+    public Customer getCustomer(String email) {
+        int index = search(customersOffset, CUSTOMER_BYTES, customerCount, utf8(CustomerService.normalizeEmail(email)));
+        return index < 0 ? null : customerAt(index);
+    }
+
+    public Collection<IRoom> findRooms(LocalDate checkInDate, LocalDate checkOutDate) {
+        int checkInDay = (int) checkInDate.toEpochDay();
+        int checkOutDay = (int) checkOutDate.toEpochDay();
+        List<IRoom> free = new ArrayList<>();
+        for (int room = 0; room < roomCount; room++) {
+            if (isFree(room, checkInDay, checkOutDay)) {
+                free.add(roomAt(room));
+            }
+        }
+        return free;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Same check as RoomCalendar: only the last stay starting before check-out can collide.
+    private boolean isFree(int room, int checkInDay, int checkOutDay) {
+        int record = roomsOffset + room * ROOM_BYTES;
+        int low = buffer.getInt(record + 16);
+        int high = low + buffer.getInt(record + 20) - 1;
+        int previous = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (buffer.getInt(staysOffset + middle * STAY_BYTES + 8) < checkOutDay) {
+                previous = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return previous < 0 || buffer.getInt(staysOffset + previous * STAY_BYTES + 12) <= checkInDay;
+    }
+
+    private IRoom roomAt(int index) {
+        int record = roomsOffset + index * ROOM_BYTES;
+        String roomNumber = stringAt(buffer.getInt(record));
+        RoomType roomType = RoomType.values()[buffer.get(record + 12)];
+        if (buffer.get(record + 13) != 0) {
+            return new FreeRoom(roomNumber, roomType);
+        }
+        return new Room(roomNumber, buffer.getDouble(record + 4), roomType);
+    }
+
+    private Customer customerAt(int index) {
+        int record = customersOffset + index * CUSTOMER_BYTES;
+        return new Customer(stringAt(buffer.getInt(record + 4)), stringAt(buffer.getInt(record + 8)),
+                stringAt(buffer.getInt(record)));
+    }
+
+    // Binary search over records whose first int references their sort key.
+    private int search(int offset, int recordBytes, int count, byte[] key) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareString(buffer.getInt(offset + middle * recordBytes), key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int compareString(int reference, byte[] key) {
+        int position = stringsOffset + reference;
+        int length = buffer.getInt(position);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (buffer.get(position + 4 + i) & 0xFF) - (key[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+
+    private String stringAt(int reference) {
+        int position = stringsOffset + reference;
+        byte[] bytes = new byte[buffer.getInt(position)];
+        buffer.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class StringTable {
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private long size;
+
+        int add(String value) {
+            Integer offset = offsets.get(value);
+            if (offset == null) {
+                byte[] bytes = utf8(value);
+                offset = (int) size;
+                offsets.put(value, offset);
+                values.add(bytes);
+                size += 4 + bytes.length;
+            }
+            return offset;
+        }
+
+        long size() {
+            return size;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            for (byte[] value : values) {
+                out.writeInt(value.length);
+                out.write(value);
+            }
+        }
+    }
+}
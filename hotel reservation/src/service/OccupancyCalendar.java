@@ -0,0 +1,383 @@
+package service;
+
+import model.IRoom;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+// One bitmap per night holding the indices of the rooms booked that night.
+// A stay is free in every room whose bit is clear on all of its nights.
+//
+// Rooms are striped in groups of 64, so a group's bitmap for one night is a
+// single long. Each group keeps its nights in chunks of 64 found through a
+// small sorted directory, so only nights that were ever booked take space and
+// a far-future stay adds one chunk instead of widening a dense span. Chunks
+// left empty are dropped.
+//
+// The whole shard is one immutable Version published through a single
+// compareAndSet: the room table and, per group, its nights and the stay map
+// of each of its 64 rooms (check-in day to reservation store row, as kept by
+// RoomCalendar). A booking copies the group array, its group's 64-slot stay
+// array and the 64-word chunks it touches, never bitmaps sized to the whole
+// hotel. Readers take current() once and work on it without locking, so a
+// search and an admin listing each see the shard as it was at one moment: a
+// moved stay is never seen on both or neither set of nights, and no booking
+// is seen without the ones published before it. Only registering rooms is
+// serialized.
+//
+// Every booking of the shard retries on the same root. A retry only redoes a
+// few small array copies, and sharded engines give each shard its own
+// calendar written by a single worker. Versions of different shards are
+// still read one after another.
+class OccupancyCalendar {
+
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_NIGHTS = 1 << CHUNK_SHIFT;
+    private static final Nights NO_NIGHTS = new Nights(new int[0], new long[0][]);
+    private static final Group EMPTY_GROUP = new Group(NO_NIGHTS, emptyStays());
+
+    private final Map<String, Integer> indexByRoomNumber = new ConcurrentHashMap<>();
+    private final AtomicReference<Version> root = new AtomicReference<>(new Version(new IRoom[16], 0, new Group[0]));
+
+    public Version current() {
+        return root.get();
+    }
+
+    // -1 for a room that was never registered
+    public int indexOf(IRoom room) {
+        Integer index = indexByRoomNumber.get(room.getRoomNumber());
+        return index == null ? -1 : index;
+    }
+
+    // Replaces known rooms and appends new ones in a single version, published
+    // once, so the whole batch becomes searchable together. Registration is
+    // serialized, and only it changes the room table, so the table read here
+    // stays current until this writer publishes its own.
+    public synchronized void registerAll(Collection<IRoom> rooms) {
+        publish(rooms);
+    }
+
+    // Each update passes the room's stay map as RoomCalendar holds it after the
+    // change. Callers hold the room's lock, so a room's updates arrive in order.
+    public void mark(IRoom room, int firstNight, int lastNightExclusive, IntTreeMap stays) {
+        int index = registeredIndex(room);
+        root.updateAndGet(version -> version.with(index,
+                version.nightsOf(index).update(index, firstNight, lastNightExclusive, true), stays));
+    }
+
+    public void unmark(IRoom room, int firstNight, int lastNightExclusive, IntTreeMap stays) {
+        int index = indexOf(room);
+        if (index >= 0) {
+            root.updateAndGet(version -> version.with(index,
+                    version.nightsOf(index).update(index, firstNight, lastNightExclusive, false), stays));
+        }
+    }
+
+    // Moves a stay in one version so readers never see it on both or neither set of nights.
+    public void move(IRoom room, int oldFirstNight, int oldLastNightExclusive,
+                     int newFirstNight, int newLastNightExclusive, IntTreeMap stays) {
+        int index = registeredIndex(room);
+        root.updateAndGet(version -> version.with(index, version.nightsOf(index)
+                .update(index, oldFirstNight, oldLastNightExclusive, false)
+                .update(index, newFirstNight, newLastNightExclusive, true), stays));
+    }
+
+    // Only registerAll adds rooms. ReservationService resolves every booked
+    // room against its registered rooms first, so a miss here is a bug.
+    private int registeredIndex(IRoom room) {
+        int index = indexOf(room);
+        if (index < 0) {
+            throw new IllegalStateException("Error, room " + room.getRoomNumber() + " was never registered.");
+        }
+        return index;
+    }
+
+    // New rooms are written into spare capacity: older versions never read
+    // past their own count. Replacing a room older versions can see copies
+    // the array first, once per batch. Indices are only handed out once the
+    // version holding their group is published.
+    private void publish(Collection<IRoom> batch) {
+        Version current = root.get();
+        IRoom[] rooms = current.rooms;
+        int roomCount = current.roomCount;
+        boolean copied = false;
+        Map<String, Integer> indices = new HashMap<>();
+        for (IRoom room : batch) {
+            Integer index = indexByRoomNumber.get(room.getRoomNumber());
+            if (index == null) {
+                index = indices.get(room.getRoomNumber());
+            }
+            if (index == null) {
+                if (roomCount == rooms.length) {
+                    rooms = Arrays.copyOf(rooms, rooms.length * 2);
+                    copied = true;
+                }
+                indices.put(room.getRoomNumber(), roomCount);
+                rooms[roomCount++] = room;
+            } else {
+                if (!copied && index < current.roomCount) {
+                    rooms = rooms.clone();
+                    copied = true;
+                }
+                rooms[index] = room;
+            }
+        }
+        IRoom[] published = rooms;
+        int publishedCount = roomCount;
+        int groupCount = (roomCount + 63) >>> 6;
+        // Bookings never change the room table, so only the groups can have moved on.
+        root.updateAndGet(version -> new Version(published, publishedCount, withGroups(version.groups, groupCount)));
+        indexByRoomNumber.putAll(indices);
+    }
+
+    private static Group[] withGroups(Group[] groups, int groupCount) {
+        if (groupCount <= groups.length) {
+            return groups;
+        }
+        Group[] grown = Arrays.copyOf(groups, groupCount);
+        Arrays.fill(grown, groups.length, groupCount, EMPTY_GROUP);
+        return grown;
+    }
+
+    private static IntTreeMap[] emptyStays() {
+        IntTreeMap[] stays = new IntTreeMap[64];
+        Arrays.fill(stays, IntTreeMap.EMPTY);
+        return stays;
+    }
+
+    private static boolean isEmpty(long[] chunk) {
+        for (long word : chunk) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] insert(int[] values, int position, int value) {
+        int[] grown = new int[values.length + 1];
+        System.arraycopy(values, 0, grown, 0, position);
+        grown[position] = value;
+        System.arraycopy(values, position, grown, position + 1, values.length - position);
+        return grown;
+    }
+
+    private static int[] remove(int[] values, int position) {
+        int[] shrunk = new int[values.length - 1];
+        System.arraycopy(values, 0, shrunk, 0, position);
+        System.arraycopy(values, position + 1, shrunk, position, shrunk.length - position);
+        return shrunk;
+    }
+
+    private static long[][] insert(long[][] values, int position, long[] value) {
+        long[][] grown = new long[values.length + 1][];
+        System.arraycopy(values, 0, grown, 0, position);
+        grown[position] = value;
+        System.arraycopy(values, position, grown, position + 1, values.length - position);
+        return grown;
+    }
+
+    private static long[][] remove(long[][] values, int position) {
+        long[][] shrunk = new long[values.length - 1][];
+        System.arraycopy(values, 0, shrunk, 0, position);
+        System.arraycopy(values, position + 1, shrunk, position, shrunk.length - position);
+        return shrunk;
+    }
+
+    // The nights of 64 rooms and each room's stays, immutable.
+    private static final class Group {
+        final Nights nights;
+        final IntTreeMap[] stays;
+
+        Group(Nights nights, IntTreeMap[] stays) {
+            this.nights = nights;
+            this.stays = stays;
+        }
+    }
+
+    // Immutable nights of one group: chunk keys (night >> CHUNK_SHIFT) sorted
+    // ascending, each chunk one word per night with a bit per room.
+    private static final class Nights {
+        private final int[] chunkKeys;
+        private final long[][] chunks;
+
+        Nights(int[] chunkKeys, long[][] chunks) {
+            this.chunkKeys = chunkKeys;
+            this.chunks = chunks;
+        }
+
+        Nights update(int index, int firstNight, int lastNightExclusive, boolean booked) {
+            if (firstNight >= lastNightExclusive) {
+                return this;
+            }
+            int[] keys = chunkKeys;
+            long[][] copies = chunks;
+            boolean copied = false;
+            long bit = 1L << index;
+            int lastKey = (lastNightExclusive - 1) >> CHUNK_SHIFT;
+            for (int key = firstNight >> CHUNK_SHIFT; key <= lastKey; key++) {
+                int slot = Arrays.binarySearch(keys, key);
+                if (slot < 0 && !booked) {
+                    continue;
+                }
+                if (!copied) {
+                    copies = copies.clone();
+                    copied = true;
+                }
+                long[] chunk;
+                if (slot < 0) {
+                    slot = -slot - 1;
+                    chunk = new long[CHUNK_NIGHTS];
+                    keys = insert(keys, slot, key);
+                    copies = insert(copies, slot, chunk);
+                } else {
+                    chunk = copies[slot].clone();
+                    copies[slot] = chunk;
+                }
+                int from = Math.max(firstNight, key << CHUNK_SHIFT);
+                int to = Math.min(lastNightExclusive, (key + 1) << CHUNK_SHIFT);
+                for (int night = from; night < to; night++) {
+                    if (booked) {
+                        chunk[night & (CHUNK_NIGHTS - 1)] |= bit;
+                    } else {
+                        chunk[night & (CHUNK_NIGHTS - 1)] &= ~bit;
+                    }
+                }
+                if (!booked && isEmpty(chunk)) {
+                    keys = remove(keys, slot);
+                    copies = remove(copies, slot);
+                }
+            }
+            return copied ? new Nights(keys, copies) : this;
+        }
+
+        long bookedOn(int night) {
+            int slot = Arrays.binarySearch(chunkKeys, night >> CHUNK_SHIFT);
+            return slot < 0 ? 0 : chunks[slot][night & (CHUNK_NIGHTS - 1)];
+        }
+
+        // Rooms booked on any night of the range, one directory search per chunk.
+        long bookedDuring(int firstNight, int lastNightExclusive) {
+            long taken = 0;
+            int lastKey = (lastNightExclusive - 1) >> CHUNK_SHIFT;
+            for (int key = firstNight >> CHUNK_SHIFT; key <= lastKey; key++) {
+                int slot = Arrays.binarySearch(chunkKeys, key);
+                if (slot < 0) {
+                    continue;
+                }
+                long[] chunk = chunks[slot];
+                int to = Math.min(lastNightExclusive, (key + 1) << CHUNK_SHIFT);
+                for (int night = Math.max(firstNight, key << CHUNK_SHIFT); night < to; night++) {
+                    taken |= chunk[night & (CHUNK_NIGHTS - 1)];
+                }
+            }
+            return taken;
+        }
+    }
+
+    // An immutable view of the shard at one moment: every room, the nights
+    // each is booked and the store rows of its stays.
+    static final class Version {
+        private final IRoom[] rooms;
+        private final int roomCount;
+        private final Group[] groups;
+
+        private Version(IRoom[] rooms, int roomCount, Group[] groups) {
+            this.rooms = rooms;
+            this.roomCount = roomCount;
+            this.groups = groups;
+        }
+
+        private Nights nightsOf(int index) {
+            return groups[index >>> 6].nights;
+        }
+
+        private Version with(int index, Nights nights, IntTreeMap roomStays) {
+            Group group = groups[index >>> 6];
+            IntTreeMap[] stays = group.stays.clone();
+            stays[index & 63] = roomStays;
+            Group[] copies = groups.clone();
+            copies[index >>> 6] = new Group(nights, stays);
+            return new Version(rooms, roomCount, copies);
+        }
+
+        public List<IRoom> rooms() {
+            return Collections.unmodifiableList(Arrays.asList(rooms).subList(0, roomCount));
+        }
+
+        // Store rows of every stay in this version, room by room in check-in order.
+        public int[] rows() {
+            int count = 0;
+            for (Group group : groups) {
+                for (IntTreeMap stays : group.stays) {
+                    count += stays.size();
+                }
+            }
+            int[] rows = new int[count];
+            int offset = 0;
+            for (Group group : groups) {
+                for (IntTreeMap stays : group.stays) {
+                    int[] values = stays.values();
+                    System.arraycopy(values, 0, rows, offset, values.length);
+                    offset += values.length;
+                }
+            }
+            return rows;
+        }
+
+        // Rooms registered after this version have no bookings in it.
+        public boolean isFree(int index, int firstNight, int lastNightExclusive) {
+            if (index < 0 || index >= roomCount) {
+                return true;
+            }
+            return (nightsOf(index).bookedDuring(firstNight, lastNightExclusive) & (1L << index)) == 0;
+        }
+
+        public List<IRoom> freeRooms(int firstNight, int lastNightExclusive) {
+            List<IRoom> free = new ArrayList<>();
+            for (int group = 0; group < groups.length; group++) {
+                addFree(free, group, ~groups[group].nights.bookedDuring(firstNight, lastNightExclusive));
+            }
+            return free;
+        }
+
+        // Free rooms for the same stay moved by every shift in [-maxShift, maxShift],
+        // indexed by shift + maxShift, computed in one pass over the affected nights.
+        public List<List<IRoom>> freeRoomsByShift(int firstNight, int lastNightExclusive, int maxShift) {
+            int nights = lastNightExclusive - firstNight;
+            int spanStart = firstNight - maxShift;
+            int span = nights + 2 * maxShift;
+            long[] bookedInSpan = new long[span];
+
+            List<List<IRoom>> freeByShift = new ArrayList<>();
+            for (int shift = 0; shift <= 2 * maxShift; shift++) {
+                freeByShift.add(new ArrayList<>());
+            }
+            for (int group = 0; group < groups.length; group++) {
+                for (int night = 0; night < span; night++) {
+                    bookedInSpan[night] = groups[group].nights.bookedOn(spanStart + night);
+                }
+                for (int shift = 0; shift <= 2 * maxShift; shift++) {
+                    long taken = 0;
+                    for (int night = shift; night < shift + nights; night++) {
+                        taken |= bookedInSpan[night];
+                    }
+                    addFree(freeByShift.get(shift), group, ~taken);
+                }
+            }
+            return freeByShift;
+        }
+
+        private void addFree(List<IRoom> free, int group, long available) {
+            while (available != 0) {
+                int index = (group << 6) + Long.numberOfTrailingZeros(available);
+                if (index >= roomCount) {
+                    break;
+                }
+                free.add(rooms[index]);
+                available &= available - 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package service;
+
+import model.RoomType;
+
+import java.time.LocalDate;
+import java.util.*;
+
+// Occupancy per night and ADR / RevPAR per room type for the nights in [from, to).
+public class OccupancyReport {
+    private final LocalDate from;
+    private final LocalDate to;
+    private final int rooms;
+    private final long[] roomsSoldByNight;
+    private final Map<RoomType, RoomTypeStats> statsByType;
+
+    public OccupancyReport(LocalDate from, LocalDate to, int rooms, long[] roomsSoldByNight,
+                           Map<RoomType, RoomTypeStats> statsByType) {
+        this.from = from;
+        this.to = to;
+        this.rooms = rooms;
+        this.roomsSoldByNight = roomsSoldByNight.clone();
+        this.statsByType = Collections.unmodifiableMap(new EnumMap<>(statsByType));
+    }
+
+    public static OccupancyReport merge(Collection<OccupancyReport> parts) {
+        Iterator<OccupancyReport> iterator = parts.iterator();
+        OccupancyReport first = iterator.next();
+        int rooms = first.rooms;
+        long[] roomsSoldByNight = first.roomsSoldByNight.clone();
+        Map<RoomType, RoomTypeStats> statsByType = new EnumMap<>(first.statsByType);
+        while (iterator.hasNext()) {
+            OccupancyReport part = iterator.next();
+            rooms += part.rooms;
+            for (int night = 0; night < roomsSoldByNight.length; night++) {
+                roomsSoldByNight[night] += part.roomsSoldByNight[night];
+            }
+            part.statsByType.forEach((type, stats) -> statsByType.merge(type, stats, RoomTypeStats::plus));
+        }
+        return new OccupancyReport(first.from, first.to, rooms, roomsSoldByNight, statsByType);
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public SortedMap<LocalDate, Double> getOccupancyByNight() {
+        SortedMap<LocalDate, Double> occupancyByNight = new TreeMap<>();
+        for (int night = 0; night < roomsSoldByNight.length; night++) {
+            occupancyByNight.put(from.plusDays(night), rooms == 0 ? 0 : (double) roomsSoldByNight[night] / rooms);
+        }
+        return occupancyByNight;
+    }
+
+    public Map<RoomType, RoomTypeStats> getStatsByType() {
+        return statsByType;
+    }
+
+    public double getOccupancyRate() {
+        long sold = 0;
+        for (long roomsSold : roomsSoldByNight) {
+            sold += roomsSold;
+        }
+        long available = (long) rooms * roomsSoldByNight.length;
+        return available == 0 ? 0 : (double) sold / available;
+    }
+
+    public double getRevenue() {
+        double revenue = 0;
+        for (RoomTypeStats stats : statsByType.values()) {
+            revenue += stats.getRevenue();
+        }
+        return revenue;
+    }
+
+    @Override
+    public String toString() {
+        return "Occupancy " + from + " to " + to + ": " + Math.round(getOccupancyRate() * 1000) / 10.0 + "%" +
+                "  Revenue: " + Math.round(getRevenue() * 100) / 100.0 + "  " + statsByType.values();
+    }
+}
@@ -0,0 +1,108 @@
+package service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Nightly rate = room price x day-of-week multiplier x month multiplier x the
+// multiplier of the highest occupancy tier reached that night.
+public final class PricingRules {
+
+    public static final PricingRules FLAT = new Builder().build();
+
+    private final double[] dayOfWeekMultipliers;
+    private final double[] monthMultipliers;
+    private final double[] tierThresholds;
+    private final double[] tierMultipliers;
+
+    private PricingRules(double[] dayOfWeekMultipliers, double[] monthMultipliers,
+                         double[] tierThresholds, double[] tierMultipliers) {
+        this.dayOfWeekMultipliers = dayOfWeekMultipliers;
+        this.monthMultipliers = monthMultipliers;
+        this.tierThresholds = tierThresholds;
+        this.tierMultipliers = tierMultipliers;
+    }
+
+    // 0 below the first threshold, otherwise the number of thresholds reached
+    public int tierOf(double occupancy) {
+        int tier = 0;
+        while (tier < tierThresholds.length && occupancy >= tierThresholds[tier]) {
+            tier++;
+        }
+        return tier;
+    }
+
+    public double rate(double price, LocalDate night, int tier) {
+        double rate = price * dayOfWeekMultipliers[night.getDayOfWeek().ordinal()]
+                * monthMultipliers[night.getMonthValue() - 1];
+        return tier == 0 ? rate : rate * tierMultipliers[tier - 1];
+    }
+
+    @Override
+    public String toString() {
+        return "PricingRules{" +
+                "dayOfWeek=" + Arrays.toString(dayOfWeekMultipliers) +
+                ", month=" + Arrays.toString(monthMultipliers) +
+                ", occupancyTiers=" + Arrays.toString(tierThresholds) +
+                " -> " + Arrays.toString(tierMultipliers) +
+                '}';
+    }
+
+    public static final class Builder {
+        private final double[] dayOfWeekMultipliers = new double[7];
+        private final double[] monthMultipliers = new double[12];
+        private final Map<Double, Double> occupancyTiers = new TreeMap<>();
+
+        public Builder() {
+            Arrays.fill(dayOfWeekMultipliers, 1.0);
+            Arrays.fill(monthMultipliers, 1.0);
+        }
+
+        public Builder setDayOfWeekMultiplier(DayOfWeek dayOfWeek, double multiplier) {
+            dayOfWeekMultipliers[dayOfWeek.ordinal()] = multiplier;
+            return this;
+        }
+
+        public Builder setMonthMultiplier(Month month, double multiplier) {
+            monthMultipliers[month.ordinal()] = multiplier;
+            return this;
+        }
+
+        // Applies the multiplier on nights at or above this share of rooms booked.
+        public Builder addOccupancyTier(double minOccupancy, double multiplier) {
+            if (minOccupancy <= 0 || minOccupancy > 1) {
+                throw new IllegalArgumentException("Error, occupancy tier must be above 0 and at most 1.");
+            }
+            occupancyTiers.put(minOccupancy, multiplier);
+            return this;
+        }
+
+        public PricingRules build() {
+            for (double multiplier : dayOfWeekMultipliers) {
+                checkMultiplier(multiplier);
+            }
+            for (double multiplier : monthMultipliers) {
+                checkMultiplier(multiplier);
+            }
+            occupancyTiers.values().forEach(Builder::checkMultiplier);
+            double[] tierThresholds = new double[occupancyTiers.size()];
+            double[] tierMultipliers = new double[occupancyTiers.size()];
+            int tier = 0;
+            for (Map.Entry<Double, Double> entry : occupancyTiers.entrySet()) {
+                tierThresholds[tier] = entry.getKey();
+                tierMultipliers[tier++] = entry.getValue();
+            }
+            return new PricingRules(dayOfWeekMultipliers.clone(), monthMultipliers.clone(),
+                    tierThresholds, tierMultipliers);
+        }
+
+        private static void checkMultiplier(double multiplier) {
+            if (!(multiplier > 0)) {
+                throw new IllegalArgumentException("Error, price multipliers must be positive.");
+            }
+        }
+    }
+}
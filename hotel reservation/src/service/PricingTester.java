@@ -0,0 +1,48 @@
+package service;
+
+import model.Customer;
+import model.IRoom;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+// Books stays while occupancy climbs through the pricing tiers and checks
+// that each reservation holds the total the guest was quoted just before.
+public class PricingTester {
+    public static void main(String[] args){
+        HotelEngine hotelEngine = new HotelEngine();
+        hotelEngine.setPricingRules(new PricingRules.Builder()
+                .setDayOfWeekMultiplier(DayOfWeek.SATURDAY, 1.25)
+                .addOccupancyTier(0.5, 1.5)
+                .addOccupancyTier(0.8, 2.0)
+                .build());
+        for (int i = 0; i < 10; i++) {
+            hotelEngine.addRoom(new Room(String.valueOf(100 + i), 80.0 + i, RoomType.Single));
+        }
+        hotelEngine.getCustomerService().addCustomer("guest@domain.com", "first", "second");
+        Customer customer = hotelEngine.getCustomerService().getCustomer("guest@domain.com");
+
+        LocalDate checkIn = LocalDate.now().plusDays(30);
+        double quotedTotal = 0;
+        for (int i = 0; i < 10; i++) {
+            IRoom room = hotelEngine.getARoom(String.valueOf(100 + i));
+            LocalDate checkOut = checkIn.plusDays(1 + i % 4);
+            double quote = hotelEngine.quote(room, checkIn, checkOut);
+            Reservation reservation = hotelEngine.reserveARoom(customer, room, checkIn, checkOut);
+            double booked = reservation.getPrice() * (reservation.getCheckOutDay() - reservation.getCheckInDay());
+            if (Math.abs(booked - quote) > 1e-9) {
+                throw new IllegalStateException("Room " + room.getRoomNumber() + " was quoted " + quote
+                        + " but booked at " + booked);
+            }
+            quotedTotal += quote;
+        }
+        double revenue = hotelEngine.occupancyReport(checkIn, checkIn.plusDays(4)).getRevenue();
+        if (Math.abs(revenue - quotedTotal) > 1e-6) {
+            throw new IllegalStateException("Report revenue " + revenue + " differs from the quoted total " + quotedTotal);
+        }
+        System.out.println("Booked prices match their quotes, total " + quotedTotal);
+    }
+}
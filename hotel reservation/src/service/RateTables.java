@@ -0,0 +1,251 @@
+package service;
+
+import model.IRoom;
+import model.RoomType;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Cached nightly rates, one primitive table per room type and price, so
+// quoting a stay is a sum over array slots. Rooms sharing a type and price
+// share a table; each room finds its table through one lookup by number.
+//
+// A table has HORIZON_NIGHTS slots indexed by epoch day modulo the horizon, so
+// the cached window moves forward with the calendar instead of being fixed at
+// startup. Only nights from today to today + HORIZON_NIGHTS are cached; within
+// that window no two nights share a slot. Nights outside it are priced on
+// every quote without touching the tables.
+//
+// Per type, each slot has a state word packing the lap of the night it holds
+// (night / HORIZON_NIGHTS), that night's occupancy tier, and the type's
+// generation. The generation moves on every rules or room change, which
+// retires the whole type's cache in one step. A table slot is two longs: the
+// state its rate was computed for, and the rate's bits.
+//
+// Nothing takes a lock. Readers check the rate's state against the slot's
+// state on both sides of reading the rate. A tier change is one
+// compareAndSet on the state, which makes every table's rate for the slot
+// stale at once. A fill claims the table slot with a compareAndSet while it
+// writes, and a fill that loses any race still returns a correct rate, it
+// just does not cache it. Tier changes arrive from the rollup after each
+// booking or cancellation, outside the rollup's locks.
+class RateTables {
+
+    static final int HORIZON_NIGHTS = 730;
+
+    private static final int UNKNOWN_TIER = 0xFFFF;
+    // Held in a table slot's state while its rate is written. Never a real
+    // state, since only resolved tiers are cached.
+    private static final long BUSY = -1L;
+
+    private final DailyRollup rollup;
+    private final RoomCatalog catalog;
+    private final Map<RoomType, Map<Double, Table>> tablesByType = new EnumMap<>(RoomType.class);
+    private final Map<String, Table> tableByRoom = new ConcurrentHashMap<>();
+    // A fresh slot holds lap 0 of generation 0, nights in 1970-1971, never in the window.
+    private final AtomicLongArray[] slotsByType = new AtomicLongArray[RoomType.values().length];
+    private final AtomicIntegerArray generations = new AtomicIntegerArray(RoomType.values().length);
+    private volatile PricingRules rules = PricingRules.FLAT;
+    private volatile Today today = Today.now();
+
+    RateTables(DailyRollup rollup, RoomCatalog catalog) {
+        this.rollup = rollup;
+        this.catalog = catalog;
+        for (RoomType roomType : RoomType.values()) {
+            tablesByType.put(roomType, new ConcurrentHashMap<>());
+            slotsByType[roomType.ordinal()] = new AtomicLongArray(HORIZON_NIGHTS);
+        }
+        clear();
+        rollup.setListener(this::soldChanged);
+    }
+
+    // The rules are published before the generations move, so a fill that
+    // sees a new generation also sees the rules it belongs to.
+    public void setRules(PricingRules pricingRules) {
+        rules = pricingRules;
+        clear();
+    }
+
+    public double quote(IRoom room, int checkInDay, int checkOutDay) {
+        RoomType roomType = room.getRoomType();
+        AtomicLongArray slots = slotsByType[roomType.ordinal()];
+        AtomicLongArray table = table(room);
+        int generation = generations.get(roomType.ordinal());
+        int firstCached = today();
+        double total = 0;
+        for (int night = checkInDay; night < checkOutDay; night++) {
+            if (night < firstCached || night >= firstCached + HORIZON_NIGHTS) {
+                total += uncached(room, night);
+                continue;
+            }
+            int slot = Math.floorMod(night, HORIZON_NIGHTS);
+            long state = slots.get(slot);
+            if (lapOf(state) == lap(night) && generationOf(state) == generation && table.get(2 * slot) == state) {
+                double rate = Double.longBitsToDouble(table.get(2 * slot + 1));
+                if (table.get(2 * slot) == state) {
+                    total += rate;
+                    continue;
+                }
+            }
+            total += fill(room, table, night, slot);
+        }
+        return total;
+    }
+
+    // Called by the rollup after it changed the night's count, outside its locks.
+    // Bookings in other stripes can report the same night at once, so each
+    // caller re-reads the count after its compareAndSet and stops only when the
+    // state holds the tier of the count it just read: whoever finishes last has
+    // seen the final count.
+    void soldChanged(RoomType roomType, int night) {
+        AtomicLongArray slots = slotsByType[roomType.ordinal()];
+        int slot = Math.floorMod(night, HORIZON_NIGHTS);
+        while (true) {
+            long state = slots.get(slot);
+            if (lapOf(state) != lap(night) || generationOf(state) != generations.get(roomType.ordinal())) {
+                return;
+            }
+            int tier = tierFor(roomType, rollup.sold(roomType, night));
+            if (tierIn(state) == tier) {
+                return;
+            }
+            slots.compareAndSet(slot, state, state(night, tier, generationOf(state)));
+        }
+    }
+
+    // Adding rooms changes every night's occupancy for the type.
+    public void roomsChanged(RoomType roomType) {
+        generations.incrementAndGet(roomType.ordinal());
+        tablesByType.get(roomType).clear();
+        tableByRoom.clear();
+    }
+
+    public void clear() {
+        for (RoomType roomType : RoomType.values()) {
+            roomsChanged(roomType);
+        }
+    }
+
+    // The night whose rates the slot currently holds for the type.
+    int cachedNight(RoomType roomType, int night) {
+        int slot = Math.floorMod(night, HORIZON_NIGHTS);
+        return lapOf(slotsByType[roomType.ordinal()].get(slot)) * HORIZON_NIGHTS + slot;
+    }
+
+    // A room's table is looked up by number, without boxing its price, and
+    // checked against the room in case it was retyped or repriced since.
+    private AtomicLongArray table(IRoom room) {
+        Table table = tableByRoom.get(room.getRoomNumber());
+        if (table == null || table.roomType != room.getRoomType() || table.price != room.getRoomPrice()) {
+            table = tablesByType.get(room.getRoomType())
+                    .computeIfAbsent(room.getRoomPrice(), price -> new Table(room.getRoomType(), price));
+            tableByRoom.put(room.getRoomNumber(), table);
+        }
+        return table.slots;
+    }
+
+    // Tags the slot with the night, then resolves its tier, each step one
+    // compareAndSet retried until the state is current. The slot is tagged
+    // with an unknown tier first, so a count change racing with the fill
+    // always finds the night and corrects the tier.
+    private double fill(IRoom room, AtomicLongArray table, int night, int slot) {
+        RoomType roomType = room.getRoomType();
+        AtomicLongArray slots = slotsByType[roomType.ordinal()];
+        long state;
+        while (true) {
+            int generation = generations.get(roomType.ordinal());
+            state = slots.get(slot);
+            if (lapOf(state) != lap(night) || generationOf(state) != generation) {
+                // The old night has left the window. Its rates carry its state, so retagging alone retires them.
+                slots.compareAndSet(slot, state, state(night, UNKNOWN_TIER, generation));
+            } else if (tierIn(state) == UNKNOWN_TIER) {
+                slots.compareAndSet(slot, state, state(night, tierFor(roomType, rollup.sold(roomType, night)), generation));
+            } else {
+                break;
+            }
+        }
+        double rate = rules.rate(room.getRoomPrice(), LocalDate.ofEpochDay(night), tierIn(state));
+        // If the state moved while we computed, readers see the mismatch and fill again.
+        long cachedState = table.get(2 * slot);
+        if (cachedState != BUSY && table.compareAndSet(2 * slot, cachedState, BUSY)) {
+            table.set(2 * slot + 1, Double.doubleToRawLongBits(rate));
+            table.set(2 * slot, state);
+        }
+        return rate;
+    }
+
+    private double uncached(IRoom room, int night) {
+        RoomType roomType = room.getRoomType();
+        PricingRules current = rules;
+        int rooms = catalog.count(roomType);
+        int tier = current.tierOf(rooms == 0 ? 0 : (double) rollup.sold(roomType, night) / rooms);
+        return current.rate(room.getRoomPrice(), LocalDate.ofEpochDay(night), tier);
+    }
+
+    private int tierFor(RoomType roomType, int sold) {
+        int rooms = catalog.count(roomType);
+        return rules.tierOf(rooms == 0 ? 0 : (double) sold / rooms);
+    }
+
+    // Today's epoch day, recomputed only once the day is over.
+    private int today() {
+        Today current = today;
+        if (System.currentTimeMillis() >= current.endsAtMillis) {
+            current = Today.now();
+            today = current;
+        }
+        return current.day;
+    }
+
+    private static final class Today {
+        final int day;
+        final long endsAtMillis;
+
+        private Today(int day, long endsAtMillis) {
+            this.day = day;
+            this.endsAtMillis = endsAtMillis;
+        }
+
+        static Today now() {
+            LocalDate date = LocalDate.now();
+            return new Today((int) date.toEpochDay(),
+                    date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+
+    private static final class Table {
+        final RoomType roomType;
+        final double price;
+        // Per slot: the state the rate was computed for, then the rate's bits.
+        final AtomicLongArray slots = new AtomicLongArray(2 * HORIZON_NIGHTS);
+
+        Table(RoomType roomType, double price) {
+            this.roomType = roomType;
+            this.price = price;
+        }
+    }
+
+    private static int lap(int night) {
+        return Math.floorDiv(night, HORIZON_NIGHTS) & 0xFFFF;
+    }
+
+    private static long state(int night, int tier, int generation) {
+        return ((long) lap(night) << 48) | ((long) (tier & 0xFFFF) << 32) | (generation & 0xFFFFFFFFL);
+    }
+
+    private static int lapOf(long state) {
+        return (int) (state >>> 48);
+    }
+
+    private static int tierIn(long state) {
+        return (int) (state >>> 32) & 0xFFFF;
+    }
+
+    private static int generationOf(long state) {
+        return (int) state;
+    }
+}
@@ -0,0 +1,33 @@
+package service;
+
+import model.IRoom;
+import model.Room;
+import model.RoomType;
+
+import java.time.LocalDate;
+
+// Quotes a near night and a night one horizon later, which share a cache slot,
+// and checks that the far quote leaves the slot to the near night.
+public class RateTablesTester {
+    public static void main(String[] args){
+        RoomCatalog catalog = new RoomCatalog();
+        IRoom room = new Room("101", 100.0, RoomType.Single);
+        catalog.put(null, room);
+        RateTables rates = new RateTables(new DailyRollup(), catalog);
+
+        int near = (int) LocalDate.now().plusDays(10).toEpochDay();
+        int far = near + RateTables.HORIZON_NIGHTS;
+        double nearRate = rates.quote(room, near, near + 1);
+        double farRate = rates.quote(room, far, far + 1);
+        if (rates.cachedNight(RoomType.Single, far) != near) {
+            throw new IllegalStateException("A night past the horizon took the slot of " + LocalDate.ofEpochDay(near));
+        }
+        if (rates.quote(room, near, near + 1) != nearRate || rates.quote(room, far, far + 1) != farRate) {
+            throw new IllegalStateException("Quotes changed between identical requests");
+        }
+        if (rates.cachedNight(RoomType.Single, near) != near) {
+            throw new IllegalStateException("The near night lost its slot after a re-quote");
+        }
+        System.out.println("Near night keeps its slot, far quote " + farRate + " computed uncached");
+    }
+}
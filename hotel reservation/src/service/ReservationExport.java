@@ -0,0 +1,106 @@
+package service;
+
+import java.time.LocalDate;
+
+// One page of a reservation export. Pages are resumed from the cursor returned
+// by the previous page; the first page starts at cursor 0.
+public final class ReservationExport {
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    private final Format format;
+    private final long cursor;
+    private final int pageSize;
+    private final LocalDate from;
+    private final LocalDate to;
+
+    private ReservationExport(Format format, long cursor, int pageSize, LocalDate from, LocalDate to) {
+        this.format = format;
+        this.cursor = cursor;
+        this.pageSize = pageSize;
+        this.from = from;
+        this.to = to;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    // null exports stays from the beginning
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    // null exports stays to the end
+    public LocalDate getTo() {
+        return to;
+    }
+
+    @Override
+    public String toString() {
+        return "ReservationExport{" +
+                "format=" + format +
+                ", cursor=" + cursor +
+                ", pageSize=" + pageSize +
+                ", from=" + from +
+                ", to=" + to +
+                '}';
+    }
+
+    public static final class Builder {
+        private Format format = Format.CSV;
+        private long cursor = 0;
+        private int pageSize = Integer.MAX_VALUE;
+        private LocalDate from = null;
+        private LocalDate to = null;
+
+        public Builder setFormat(Format format) {
+            this.format = format;
+            return this;
+        }
+
+        public Builder setCursor(long cursor) {
+            this.cursor = cursor;
+            return this;
+        }
+
+        public Builder setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        // Keeps only stays that overlap [from, to).
+        public Builder setDateRange(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        public ReservationExport build() {
+            if (format == null) {
+                throw new IllegalArgumentException("Error, an export needs a format.");
+            }
+            if (cursor < 0) {
+                throw new IllegalArgumentException("Error, export cursor cannot be negative.");
+            }
+            if (pageSize < 1) {
+                throw new IllegalArgumentException("Error, export page size must be positive.");
+            }
+            if (from != null && to != null && !to.isAfter(from)) {
+                throw new IllegalArgumentException("Error, export range must end after it starts.");
+            }
+            return new ReservationExport(format, cursor, pageSize, from, to);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package service;
+
+// Outcome of exporting one page; pass the next cursor to resume the export.
+public class ReservationExportPage {
+    private final int exportedReservations;
+    private final long nextCursor;
+    private final long elapsedNanos;
+
+    public ReservationExportPage(int exportedReservations, long nextCursor, long elapsedNanos) {
+        this.exportedReservations = exportedReservations;
+        this.nextCursor = nextCursor;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getExportedReservations() {
+        return exportedReservations;
+    }
+
+    // -1 once every reservation has been exported
+    public long getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor >= 0;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : exportedReservations * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Exported reservations: " + exportedReservations + "  Next cursor: " + nextCursor +
+                "  Rows per second: " + Math.round(getRowsPerSecond());
+    }
+}
@@ -0,0 +1,120 @@
+package service;
+
+import model.Customer;
+import model.IRoom;
+import model.Reservation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+// Streams reservations straight out of the shards' columnar stores, one row at
+// a time, so memory stays bounded whatever the size of the history.
+// The cursor packs the shard into the high 32 bits and the store row into the low.
+// Cancelled rows are reused, so a stay booked or moved while an export is
+// being paged can land behind the cursor and be left out of that export.
+class ReservationExporter {
+
+    private static final String CSV_HEADER = "email,firstName,lastName,roomNumber,roomType,price,checkIn,checkOut\n";
+
+    private final ReservationExport export;
+    private final Writer out;
+    private final Map<Integer, String> dates = new HashMap<>();
+
+    ReservationExporter(ReservationExport export, Writer out) {
+        this.export = export;
+        this.out = out;
+    }
+
+    public ReservationExportPage export(ReservationService[] shards) throws IOException {
+        long start = System.nanoTime();
+        int fromDay = export.getFrom() == null ? Integer.MIN_VALUE : (int) export.getFrom().toEpochDay();
+        int toDay = export.getTo() == null ? Integer.MAX_VALUE : (int) export.getTo().toEpochDay();
+        if (export.getCursor() == 0 && export.getFormat() == ReservationExport.Format.CSV) {
+            out.write(CSV_HEADER);
+        }
+        int shard = (int) (export.getCursor() >>> 32);
+        int row = (int) export.getCursor();
+        int exported = 0;
+        for (; shard < shards.length; shard++, row = 0) {
+            ReservationStore store = shards[shard].store();
+            int rows = store.size();
+            for (; row < rows; row++) {
+                if (exported == export.getPageSize()) {
+                    out.flush();
+                    return new ReservationExportPage(exported, ((long) shard << 32) | row, System.nanoTime() - start);
+                }
+                Reservation stay = store.read(row);
+                if (stay != null && stay.getCheckInDay() < toDay && stay.getCheckOutDay() > fromDay) {
+                    write(stay.getCustomer(), stay.getiRoom(), stay.getPrice(), stay.getCheckInDay(),
+                            stay.getCheckOutDay());
+                    exported++;
+                }
+            }
+        }
+        out.flush();
+        return new ReservationExportPage(exported, -1, System.nanoTime() - start);
+    }
+
+    private void write(Customer customer, IRoom room, double price, int checkInDay, int checkOutDay)
+            throws IOException {
+        if (export.getFormat() == ReservationExport.Format.CSV) {
+            csv(customer.getEmail());
+            out.write(',');
+            csv(customer.getFirstName());
+            out.write(',');
+            csv(customer.getLastName());
+            out.write(',');
+            csv(room.getRoomNumber());
+            out.write(',');
+            out.write(room.getRoomType().name());
+            out.write(',');
+            out.write(Double.toString(price));
+            out.write(',');
+            out.write(date(checkInDay));
+            out.write(',');
+            out.write(date(checkOutDay));
+            out.write('\n');
+        } else {
+            out.write("{\"email\":");
+            JsonStrings.quote(out, customer.getEmail());
+            out.write(",\"firstName\":");
+            JsonStrings.quote(out, customer.getFirstName());
+            out.write(",\"lastName\":");
+            JsonStrings.quote(out, customer.getLastName());
+            out.write(",\"roomNumber\":");
+            JsonStrings.quote(out, room.getRoomNumber());
+            out.write(",\"roomType\":\"");
+            out.write(room.getRoomType().name());
+            out.write("\",\"price\":");
+            out.write(Double.toString(price));
+            out.write(",\"checkIn\":\"");
+            out.write(date(checkInDay));
+            out.write("\",\"checkOut\":\"");
+            out.write(date(checkOutDay));
+            out.write("\"}\n");
+        }
+    }
+
+    // Bookings cluster around a few hundred distinct days, so format each once.
+    private String date(int epochDay) {
+        return dates.computeIfAbsent(epochDay, day -> LocalDate.ofEpochDay(day).toString());
+    }
+
+    private void csv(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
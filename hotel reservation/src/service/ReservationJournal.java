@@ -0,0 +1,499 @@
+package service;
+
+import model.Customer;
+import model.FreeRoom;
+import model.IRoom;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+// Append-only log of every change made to the hotel, plus a snapshot of the
+// full state so that startup only replays the records written after it.
+//
+// Record layout: int length, byte type, payload, int crc32(type + payload).
+// A single writer thread drains all pending records, writes them in one go
+// and forces them to disk once, so concurrent callers share each fsync.
+//
+// The log is split into numbered segments. Each snapshot starts a new segment
+// and, once the snapshot is on disk, deletes the segments it covers.
+// After a failed write the journal stops: nothing more is acknowledged or
+// accepted, and the segment is cut back to its last forced record so that
+// bookings the callers were told failed cannot come back on replay.
+public class ReservationJournal implements Closeable {
+
+    static final byte ROOM_ADDED = 1;
+    static final byte CUSTOMER_CREATED = 2;
+    static final byte RESERVATION_BOOKED = 3;
+    static final byte RESERVATION_CANCELLED = 4;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_FILE = "snapshot.map";
+    // Queued by close() behind the last record. The writer is never interrupted:
+    // an interrupt would close the FileChannel under a batch in flight.
+    private static final byte[] CLOSE = new byte[0];
+
+    private final Path directory;
+    private final LinkedBlockingQueue<byte[]> pending = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final Object durableLock = new Object();
+    private final Object channelLock = new Object();
+    private final ReentrantReadWriteLock publishLock = new ReentrantReadWriteLock();
+    private final Object snapshotLock = new Object();
+    private ScheduledExecutorService snapshots;
+
+    private FileChannel channel;
+    private int segment;
+    private long durableOffset;
+    private long appendedSequence;
+    private long durableSequence;
+    private volatile IOException failure;
+    private volatile boolean started;
+    private volatile boolean closed;
+
+    private ReservationJournal(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        this.writer = new Thread(this::writeLoop, "reservation-journal");
+        this.writer.setDaemon(true);
+    }
+
+    public static ReservationJournal open(Path directory) throws IOException {
+        return new ReservationJournal(directory);
+    }
+
+    // Loads the latest snapshot and replays the journal tail into the services,
+    // then starts accepting new records. Call before attaching the journal.
+    public void recover(ReservationService reservationService, CustomerService customerService) throws IOException {
+        int replayFrom = 0;
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            try (MappedSnapshot image = MappedSnapshot.open(snapshot)) {
+                replayFrom = image.replaySegment();
+                image.restoreInto(reservationService, customerService);
+            }
+        }
+
+        int firstSegment = replayFrom;
+        List<Integer> segments = segments();
+        segments.removeIf(number -> number < firstSegment);
+        segment = segments.isEmpty() ? replayFrom : segments.get(segments.size() - 1);
+        channel = FileChannel.open(segmentFile(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        for (int number : segments) {
+            try (FileChannel replayed = FileChannel.open(segmentFile(number), StandardOpenOption.READ)) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(replayed), 1 << 16));
+                long end = readRecords(in, replayed.size(), reservationService, customerService);
+                if (number == segment) {
+                    // Anything after the last intact record is a torn write from a crash.
+                    channel.truncate(end);
+                    channel.position(end);
+                }
+            }
+        }
+        durableOffset = channel.position();
+        started = true;
+        writer.start();
+    }
+
+    // Runs an action that journals a record and then makes its change visible.
+    // Snapshots wait for running actions, so no segment they retire can hold a
+    // record whose change the snapshot could not see yet.
+    public long publish(LongSupplier action) {
+        publishLock.readLock().lock();
+        try {
+            return action.getAsLong();
+        } finally {
+            publishLock.readLock().unlock();
+        }
+    }
+
+    public long roomAdded(IRoom room) {
+        return append(ROOM_ADDED, out -> writeRoom(out, room));
+    }
+
+    public long customerCreated(Customer customer) {
+        return append(CUSTOMER_CREATED, out -> writeCustomer(out, customer));
+    }
+
+    public long reservationBooked(Reservation reservation) {
+        return append(RESERVATION_BOOKED, out -> writeReservation(out, reservation));
+    }
+
+    public long reservationCancelled(Reservation reservation) {
+        return append(RESERVATION_CANCELLED, out -> writeReservation(out, reservation));
+    }
+
+    // A date change, replayed as a cancellation followed by a booking. Both
+    // records become durable together or not at all.
+    public long reservationMoved(Reservation previous, Reservation moved) {
+        return append(new byte[] {RESERVATION_CANCELLED, RESERVATION_BOOKED},
+                new Encoder[] {out -> writeReservation(out, previous), out -> writeReservation(out, moved)});
+    }
+
+    // Blocks until the record with the given sequence number is on disk. Throws
+    // if the journal failed before getting there.
+    public void awaitDurable(long sequence) {
+        synchronized (durableLock) {
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw unavailable();
+                }
+                try {
+                    durableLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the reservation journal.", e);
+                }
+            }
+        }
+    }
+
+    // Replay is idempotent, so the snapshot only has to contain at least
+    // everything journaled before the segment it replays from.
+    public void snapshot(ReservationService reservationService, CustomerService customerService) throws IOException {
+        synchronized (snapshotLock) {
+            writeSnapshot(reservationService, customerService);
+        }
+    }
+
+    private void writeSnapshot(ReservationService reservationService, CustomerService customerService)
+            throws IOException {
+        int replayFrom = startSegment();
+        MappedSnapshot.write(directory.resolve(SNAPSHOT_FILE), reservationService, customerService, replayFrom);
+        for (int number : segments()) {
+            if (number < replayFrom) {
+                Files.deleteIfExists(segmentFile(number));
+            }
+        }
+    }
+
+    public synchronized void scheduleSnapshots(long period, TimeUnit unit,
+                                               ReservationService reservationService, CustomerService customerService) {
+        if (snapshots != null) {
+            snapshots.shutdownNow();
+        }
+        snapshots = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshots.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot(reservationService, customerService);
+            } catch (IOException e) {
+                System.err.println("Reservation snapshot failed: " + e.getMessage());
+            }
+        }, period, period, unit);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (snapshots != null) {
+                snapshots.shutdownNow();
+            }
+            if (!closed) {
+                // append() holds this lock too, so CLOSE is always the last record queued.
+                closed = true;
+                pending.add(CLOSE);
+            }
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (channelLock) {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    // Moves appends to a fresh segment and returns its number.
+    private int startSegment() throws IOException {
+        publishLock.writeLock().lock();
+        try {
+            synchronized (channelLock) {
+                if (!started || closed) {
+                    throw new IOException("Reservation journal is not open.");
+                }
+                FileChannel next = FileChannel.open(segmentFile(segment + 1),
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.close();
+                channel = next;
+                durableOffset = 0;
+                return ++segment;
+            }
+        } finally {
+            publishLock.writeLock().unlock();
+        }
+    }
+
+    private List<Integer> segments() throws IOException {
+        List<Integer> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(Integer.parseInt(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private Path segmentFile(int number) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private UncheckedIOException unavailable() {
+        return new UncheckedIOException("Error, reservation journal is unavailable.", failure);
+    }
+
+    private interface Encoder {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private long append(byte type, Encoder encoder) {
+        return append(new byte[] {type}, new Encoder[] {encoder});
+    }
+
+    // The records are queued as one entry, so they are written and forced in
+    // the same batch and share one sequence number.
+    private synchronized long append(byte[] types, Encoder[] encoders) {
+        if (!started || closed) {
+            throw new IllegalStateException("Error, reservation journal is not open.");
+        }
+        if (failure != null) {
+            throw unavailable();
+        }
+        ByteArrayOutputStream records = new ByteArrayOutputStream(64 * types.length);
+        try {
+            for (int i = 0; i < types.length; i++) {
+                writeRecord(new DataOutputStream(records), types[i], encode(encoders[i]));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pending.add(records.toByteArray());
+        return ++appendedSequence;
+    }
+
+    private void writeLoop() {
+        List<byte[]> batch = new ArrayList<>();
+        boolean closing = false;
+        while (!closing) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                // Not how the writer is stopped; keep draining until CLOSE arrives.
+                continue;
+            }
+            pending.drainTo(batch);
+            if (batch.get(batch.size() - 1) == CLOSE) {
+                batch.remove(batch.size() - 1);
+                closing = true;
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = ByteBuffer.wrap(batch.get(i));
+            }
+            synchronized (channelLock) {
+                try {
+                    while (buffers[buffers.length - 1].hasRemaining()) {
+                        channel.write(buffers);
+                    }
+                    channel.force(false);
+                    durableOffset = channel.position();
+                } catch (IOException e) {
+                    discardUndurable(e);
+                    failure = e;
+                }
+            }
+            // A failed batch is never acknowledged; its waiters wake up and see the failure.
+            synchronized (durableLock) {
+                if (failure == null) {
+                    durableSequence += batch.size();
+                }
+                durableLock.notifyAll();
+            }
+            batch.clear();
+            if (failure != null) {
+                return;
+            }
+        }
+    }
+
+    // Cuts the segment back to the end of the last forced batch. Called with
+    // channelLock held, before the failure is published to the waiters.
+    private void discardUndurable(IOException cause) {
+        try {
+            if (!channel.isOpen()) {
+                // A stray interrupt closed it; clear the flag or the new channel closes too.
+                Thread.interrupted();
+                channel = FileChannel.open(segmentFile(segment), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            channel.truncate(durableOffset);
+            channel.position(durableOffset);
+            channel.force(false);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    // Returns the number of bytes consumed by intact records.
+    private static long readRecords(DataInputStream in, long limit, ReservationService reservationService,
+                                    CustomerService customerService) throws IOException {
+        long consumed = 0;
+        CRC32 crc = new CRC32();
+        byte[] body = new byte[256];
+        while (consumed + 4 <= limit) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            if (length <= 0 || consumed + 8 + length > limit) {
+                break;
+            }
+            if (body.length < length) {
+                body = new byte[Math.max(length, body.length * 2)];
+            }
+            int checksum;
+            try {
+                in.readFully(body, 0, length);
+                checksum = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            crc.reset();
+            crc.update(body, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            apply(new DataInputStream(new ByteArrayInputStream(body, 1, length - 1)), body[0],
+                    reservationService, customerService);
+            consumed += 8 + length;
+        }
+        return consumed;
+    }
+
+    private static void apply(DataInputStream in, byte type, ReservationService reservationService,
+                              CustomerService customerService) throws IOException {
+        switch (type) {
+            case ROOM_ADDED:
+                reservationService.addRoom(readRoom(in));
+                break;
+            case CUSTOMER_CREATED:
+                customerService.addCustomer(in.readUTF(), in.readUTF(), in.readUTF());
+                break;
+            case RESERVATION_BOOKED: {
+                Reservation reservation = readReservation(in, reservationService, customerService);
+                if (reservation != null) {
+                    reservationService.restoreReservation(reservation);
+                }
+                break;
+            }
+            case RESERVATION_CANCELLED: {
+                Reservation reservation = readReservation(in, reservationService, customerService);
+                if (reservation != null) {
+                    reservationService.restoreCancellation(reservation);
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    private static Reservation readReservation(DataInputStream in, ReservationService reservationService,
+                                               CustomerService customerService) throws IOException {
+        Customer customer = customerService.getCustomer(in.readUTF());
+        IRoom room = reservationService.getARoom(in.readUTF());
+        int checkInDay = in.readInt();
+        int checkOutDay = in.readInt();
+        double price = in.readDouble();
+        RoomType bookedType = RoomType.values()[in.readByte()];
+        return customer == null || room == null ? null
+                : new Reservation(customer, ReservationService.asBooked(room, bookedType), checkInDay, checkOutDay, price);
+    }
+
+    private static byte[] encode(Encoder encoder) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try {
+            encoder.write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeRecord(DataOutputStream out, byte type, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        out.writeInt(payload.length + 1);
+        out.writeByte(type);
+        out.write(payload);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void writeRoom(DataOutputStream out, IRoom room) throws IOException {
+        out.writeUTF(room.getRoomNumber());
+        out.writeDouble(room.getRoomPrice());
+        out.writeByte(room.getRoomType().ordinal());
+        out.writeBoolean(room.isFree());
+    }
+
+    private static IRoom readRoom(DataInputStream in) throws IOException {
+        String roomNumber = in.readUTF();
+        double price = in.readDouble();
+        RoomType roomType = RoomType.values()[in.readByte()];
+        return in.readBoolean() ? new FreeRoom(roomNumber, roomType) : new Room(roomNumber, price, roomType);
+    }
+
+    private static void writeCustomer(DataOutputStream out, Customer customer) throws IOException {
+        out.writeUTF(customer.getEmail());
+        out.writeUTF(customer.getFirstName());
+        out.writeUTF(customer.getLastName());
+    }
+
+    private static void writeReservation(DataOutputStream out, Reservation reservation) throws IOException {
+        out.writeUTF(reservation.getCustomer().getEmail());
+        out.writeUTF(reservation.getiRoom().getRoomNumber());
+        out.writeInt(reservation.getCheckInDay());
+        out.writeInt(reservation.getCheckOutDay());
+        out.writeDouble(reservation.getPrice());
+        // The room may be retyped later; replay must keep the stay under the type it was booked as.
+        out.writeByte(reservation.getiRoom().getRoomType().ordinal());
+    }
+}
@@ -1,69 +1,530 @@
 package service;
 
 import model.Customer;
+import model.FreeRoom;
 import model.IRoom;
 import model.Reservation;
+import model.Room;
+import model.RoomType;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ReservationService {
 
-    private static final Map<String, IRoom> mapOfRooms = new HashMap<String, IRoom>();
-    private static final Set<Reservation> reservations = new HashSet<>();
+    // Stays can be booked from today up to this many years ahead.
+    private static final int MAX_ADVANCE_YEARS = 10;
 
+    private final Map<String, IRoom> mapOfRooms = new ConcurrentHashMap<String, IRoom>();
+    private final Map<String, RoomCalendar> calendars = new ConcurrentHashMap<String, RoomCalendar>();
+    private final ReservationStore store = new ReservationStore();
+    private final Map<String, RowList> reservationsByEmail = new ConcurrentHashMap<String, RowList>();
+    private final OccupancyCalendar occupancy = new OccupancyCalendar();
+    private final RoomCatalog catalog = new RoomCatalog();
+    private final DailyRollup rollup = new DailyRollup();
+    private final RateTables rates = new RateTables(rollup, catalog);
+    private volatile ReservationJournal journal;
+
+
+    void setJournal(ReservationJournal reservationJournal) {
+        journal = reservationJournal;
+    }
 
     public void addRoom(IRoom iRoom){
-        mapOfRooms.put(iRoom.getRoomNumber(),iRoom);
+        addRooms(Collections.singletonList(iRoom));
+    }
+
+    // Makes the whole batch searchable at once and waits for a single journal flush.
+    public void addRooms(Collection<IRoom> rooms){
+        if (rooms.isEmpty()) {
+            return;
+        }
+        ReservationJournal currentJournal = journal;
+        if (currentJournal == null) {
+            publishRooms(rooms, null);
+            return;
+        }
+        currentJournal.awaitDurable(currentJournal.publish(() -> publishRooms(rooms, currentJournal)));
+    }
+
+    // Journals each room before it becomes visible, so no booking of the room
+    // can reach the log ahead of it. Returns the last journal sequence.
+    private long publishRooms(Collection<IRoom> rooms, ReservationJournal currentJournal) {
+        long sequence = 0;
+        // A room moved to another type changes the counts of both types.
+        Set<RoomType> roomTypes = EnumSet.noneOf(RoomType.class);
+        for (IRoom room : rooms) {
+            if (currentJournal != null) {
+                sequence = currentJournal.roomAdded(room);
+            }
+            IRoom previous = putRoom(room);
+            if (previous != null) {
+                roomTypes.add(previous.getRoomType());
+            }
+            roomTypes.add(room.getRoomType());
+        }
+        occupancy.registerAll(rooms);
+        roomTypes.forEach(rates::roomsChanged);
+        return sequence;
+    }
+
+    private synchronized IRoom putRoom(IRoom room) {
+        IRoom previous = mapOfRooms.put(room.getRoomNumber(), room);
+        calendars.putIfAbsent(room.getRoomNumber(), new RoomCalendar(store));
+        catalog.put(previous, room);
+        store.putRoom(room);
+        return previous;
     }
 
     public IRoom getARoom(String roomId){
         return mapOfRooms.get(roomId);
     }
 
-    public Reservation reserveARoom(Customer customer, IRoom room, Date checkInDate, Date checkOutDate){
-        Reservation reservation = new Reservation(customer, room, checkInDate, checkOutDate);
-        reservations.add(reservation) ;
+    public Reservation reserveARoom(Customer customer, IRoom room, LocalDate checkInDate, LocalDate checkOutDate){
+        if (customer == null) {
+            throw new IllegalArgumentException("Error, no account found for that email.");
+        }
+        IRoom registered = room == null ? null : mapOfRooms.get(room.getRoomNumber());
+        if (registered == null) {
+            throw new IllegalArgumentException("Error, no room found with that number.");
+        }
+        checkStayDates(checkInDate, checkOutDate);
+        // Booked as the room was added, whatever copy of it the caller holds.
+        Reservation reservation = quoted(customer, registered, (int) checkInDate.toEpochDay(),
+                (int) checkOutDate.toEpochDay());
+        long sequence = book(reservation);
+        ReservationJournal currentJournal = journal;
+        if (currentJournal != null) {
+            try {
+                currentJournal.awaitDurable(sequence);
+            } catch (RuntimeException e) {
+                // The booking never reached the disk, so the caller must not keep the room.
+                undo(reservation);
+                throw e;
+            }
+        }
         return reservation;
     }
 
-    public Collection<IRoom> findRooms(Date checkInDate, Date checkOutDate){
-        Set<IRoom> findAvailableRooms = new HashSet<>();
+    // Stays must start today or later and end within MAX_ADVANCE_YEARS, so a
+    // booking cannot make the per-night indexes reach out to arbitrary years.
+    static void checkStayDates(LocalDate checkInDate, LocalDate checkOutDate) {
+        if (!checkOutDate.isAfter(checkInDate)) {
+            throw new IllegalArgumentException("Error, check out must be after check in.");
+        }
+        LocalDate today = LocalDate.now();
+        if (checkInDate.isBefore(today)) {
+            throw new IllegalArgumentException("Error, check in cannot be in the past.");
+        }
+        if (checkOutDate.isAfter(today.plusYears(MAX_ADVANCE_YEARS))) {
+            throw new IllegalArgumentException("Error, stays can be booked at most " + MAX_ADVANCE_YEARS
+                    + " years ahead.");
+        }
+    }
+
+    // The first day no stay may reach past, as checkStayDates has it: the end of the booking window.
+    static int bookingWindowEndDay() {
+        return (int) LocalDate.now().plusYears(MAX_ADVANCE_YEARS).toEpochDay();
+    }
+
+    // Whether checkStayDates would accept the stay, for offers that must be bookable.
+    static boolean isBookable(LocalDate checkInDate, LocalDate checkOutDate) {
+        LocalDate today = LocalDate.now();
+        return checkOutDate.isAfter(checkInDate) && !checkInDate.isBefore(today)
+                && !checkOutDate.isAfter(today.plusYears(MAX_ADVANCE_YEARS));
+    }
+
+    // Books without waiting for the journal and returns the sequence number to
+    // wait for, 0 without a journal. Callers booking several stays wait once.
+    //
+    // Bookings of different rooms share no lock except the row append in
+    // ReservationStore, a handful of array stores, and the journal's append,
+    // which keeps one ordered history. The occupancy bitmaps, the rollup and
+    // the rate tiers are striped or lock-free.
+    long book(Reservation reservation) {
+        IRoom room = reservation.getiRoom();
+        RoomCalendar calendar = calendars.computeIfAbsent(room.getRoomNumber(), roomNumber -> new RoomCalendar(store));
+        ReservationJournal currentJournal = journal;
+        // Journal while holding the room so its records keep the booking order.
+        synchronized (calendar) {
+            int row = calendar.add(reservation);
+            if (row < 0) {
+                throw new RoomUnavailableException("Error, room is already booked for those dates.");
+            }
+            index(calendar, reservation, row);
+            rollup.add(reservation);
+            if (currentJournal == null) {
+                return 0;
+            }
+            try {
+                return currentJournal.reservationBooked(reservation);
+            } catch (RuntimeException e) {
+                drop(calendar, reservation, row);
+                throw e;
+            }
+        }
+    }
+
+    // Books the stay in the first of the rooms that is free on its nights. Each
+    // room's calendar is checked first, so rooms already taken cost no exception.
+    // Rooms are booked as registered; unknown ones are skipped. Returns null
+    // when none of them is free.
+    Booking bookFirstFree(Customer customer, Collection<IRoom> rooms, int checkInDay, int checkOutDay) {
+        for (IRoom offered : rooms) {
+            IRoom room = mapOfRooms.get(offered.getRoomNumber());
+            RoomCalendar calendar = calendars.get(offered.getRoomNumber());
+            if (room == null || calendar != null && !calendar.isFree(checkInDay, checkOutDay)) {
+                continue;
+            }
+            Reservation reservation = quoted(customer, room, checkInDay, checkOutDay);
+            try {
+                return new Booking(reservation, book(reservation));
+            } catch (RoomUnavailableException e) {
+                // booked by someone else since the check
+            }
+        }
+        return null;
+    }
+
+    // A new stay at the rate quote() gives for it right now, kept as its
+    // average nightly price so the stay's booked total matches the quote.
+    // Callers pass the registered room, so its catalog price is charged.
+    private Reservation quoted(Customer customer, IRoom room, int checkInDay, int checkOutDay) {
+        double nightly = rates.quote(room, checkInDay, checkOutDay) / (checkOutDay - checkInDay);
+        return new Reservation(customer, room, checkInDay, checkOutDay, nightly);
+    }
+
+    // The room as it was when a stay was booked under bookedType, for stays
+    // restored after the room was retyped.
+    static IRoom asBooked(IRoom room, RoomType bookedType) {
+        if (room.getRoomType() == bookedType) {
+            return room;
+        }
+        return room.isFree() ? new FreeRoom(room.getRoomNumber(), bookedType)
+                : new Room(room.getRoomNumber(), room.getRoomPrice(), bookedType);
+    }
 
-        for(IRoom room : mapOfRooms.values()){
-            for(Reservation reservation: reservations){
-                if (room == reservation.getiRoom()) {
+    // Takes back a booking whose journal record never became durable.
+    void undo(Reservation reservation) {
+        RoomCalendar calendar = calendars.get(reservation.getiRoom().getRoomNumber());
+        if (calendar == null) {
+            return;
+        }
+        synchronized (calendar) {
+            int row = calendar.rowAt(reservation.getCheckInDay());
+            if (row >= 0 && store.get(row).equals(reservation)) {
+                drop(calendar, reservation, row);
+            }
+        }
+    }
 
-                    boolean flag = checkOutDate.before(reservation.getCheckInDate()) ||
-                            checkInDate.after(reservation.getCheckOutDate());
-                    if (!flag) {
-                        break;
-                    }
+    private void drop(RoomCalendar calendar, Reservation reservation, int row) {
+        unindex(calendar, reservation, row);
+        rollup.remove(reservation);
+    }
+
+    // Replay leaves the daily rollup alone; rebuildRollup catches it up in one pass.
+    boolean restoreReservation(Reservation reservation) {
+        RoomCalendar calendar = calendars.computeIfAbsent(reservation.getiRoom().getRoomNumber(),
+                roomNumber -> new RoomCalendar(store));
+        synchronized (calendar) {
+            int row = calendar.add(reservation);
+            if (row < 0) {
+                return false;
+            }
+            index(calendar, reservation, row);
+        }
+        return true;
+    }
+
+    private void index(RoomCalendar calendar, Reservation reservation, int row) {
+        occupancy.mark(reservation.getiRoom(), reservation.getCheckInDay(), reservation.getCheckOutDay(),
+                calendar.stays());
+        reservationsByEmail.computeIfAbsent(reservation.getCustomer().getEmail(), email -> new RowList()).add(row);
+    }
+
+    // Every index is updated while holding the room: the room's calendar and the
+    // customer's rows in O(log k) each, the occupancy bitmaps per night of the stay.
+    //
+    // Unlike a booking, a cancellation or a move is journaled and made durable
+    // before anything changes. Freed nights could be booked by someone else the
+    // moment they show as free, after which the old stay could no longer be put
+    // back if the journal then failed. Waiting while holding the room only holds
+    // up other changes to the same room; searches never take the lock.
+    public Reservation cancelReservation(Customer customer, IRoom room, LocalDate checkInDate){
+        RoomCalendar calendar = calendarOf(customer, room);
+        ReservationJournal currentJournal = journal;
+        if (currentJournal == null) {
+            return cancel(calendar, customer, checkInDate, null);
+        }
+        Reservation[] cancelled = new Reservation[1];
+        currentJournal.publish(() -> {
+            cancelled[0] = cancel(calendar, customer, checkInDate, currentJournal);
+            return 0;
+        });
+        return cancelled[0];
+    }
+
+    private Reservation cancel(RoomCalendar calendar, Customer customer, LocalDate checkInDate,
+                               ReservationJournal currentJournal) {
+        synchronized (calendar) {
+            int row = rowOf(calendar, customer, (int) checkInDate.toEpochDay());
+            Reservation cancelled = store.get(row);
+            if (currentJournal != null) {
+                currentJournal.awaitDurable(currentJournal.reservationCancelled(cancelled));
+            }
+            drop(calendar, cancelled, row);
+            return cancelled;
+        }
+    }
+
+    public Reservation changeReservationDates(Customer customer, IRoom room, LocalDate checkInDate,
+                                              LocalDate newCheckInDate, LocalDate newCheckOutDate){
+        return changeDates(customer, room, checkInDate, newCheckInDate, newCheckOutDate).moved;
+    }
+
+    // Same as changeReservationDates, also returning the stay as it was before the change.
+    DateChange changeDates(Customer customer, IRoom room, LocalDate checkInDate,
+                           LocalDate newCheckInDate, LocalDate newCheckOutDate) {
+        checkStayDates(newCheckInDate, newCheckOutDate);
+        RoomCalendar calendar = calendarOf(customer, room);
+        ReservationJournal currentJournal = journal;
+        if (currentJournal == null) {
+            return move(calendar, customer, room, checkInDate, newCheckInDate, newCheckOutDate, null);
+        }
+        DateChange[] change = new DateChange[1];
+        currentJournal.publish(() -> {
+            change[0] = move(calendar, customer, room, checkInDate, newCheckInDate, newCheckOutDate, currentJournal);
+            return 0;
+        });
+        return change[0];
+    }
+
+    private DateChange move(RoomCalendar calendar, Customer customer, IRoom room, LocalDate checkInDate,
+                            LocalDate newCheckInDate, LocalDate newCheckOutDate, ReservationJournal currentJournal) {
+        synchronized (calendar) {
+            int row = rowOf(calendar, customer, (int) checkInDate.toEpochDay());
+            Reservation previous = store.get(row);
+            IRoom bookedRoom = previous.getiRoom();
+            if (!bookedRoom.getRoomNumber().equals(room.getRoomNumber())) {
+                throw new IllegalArgumentException("Error, no reservation found for that stay.");
+            }
+            // The guest keeps the room as booked, type included, and the nightly
+            // price they booked at, even if the room was retyped since.
+            Reservation moved = new Reservation(customer, bookedRoom, (int) newCheckInDate.toEpochDay(),
+                    (int) newCheckOutDate.toEpochDay(), previous.getPrice());
+            if (!calendar.canMove(row, moved)) {
+                throw new RoomUnavailableException("Error, room is already booked for those dates.");
+            }
+            if (currentJournal != null) {
+                currentJournal.awaitDurable(currentJournal.reservationMoved(previous, moved));
+            }
+            int newRow = calendar.move(row, moved);
+            occupancy.move(bookedRoom, previous.getCheckInDay(), previous.getCheckOutDay(),
+                    moved.getCheckInDay(), moved.getCheckOutDay(), calendar.stays());
+            RowList rows = reservationsByEmail.get(customer.getEmail());
+            rows.remove(row);
+            rows.add(newRow);
+            store.free(row);
+            rollup.remove(previous);
+            rollup.add(moved);
+            return new DateChange(previous, moved);
+        }
+    }
+
+    boolean restoreCancellation(Reservation reservation) {
+        RoomCalendar calendar = calendars.get(reservation.getiRoom().getRoomNumber());
+        if (calendar == null) {
+            return false;
+        }
+        synchronized (calendar) {
+            int row = calendar.rowAt(reservation.getCheckInDay());
+            if (row < 0 || !store.get(row).equals(reservation)) {
+                return false;
+            }
+            unindex(calendar, reservation, row);
+        }
+        return true;
+    }
+
+    private RoomCalendar calendarOf(Customer customer, IRoom room) {
+        if (customer == null) {
+            throw new IllegalArgumentException("Error, no account found for that email.");
+        }
+        if (room == null) {
+            throw new IllegalArgumentException("Error, no room found with that number.");
+        }
+        RoomCalendar calendar = calendars.get(room.getRoomNumber());
+        if (calendar == null) {
+            throw new IllegalArgumentException("Error, no reservation found for that stay.");
+        }
+        return calendar;
+    }
+
+    private int rowOf(RoomCalendar calendar, Customer customer, int checkInDay) {
+        int row = calendar.rowAt(checkInDay);
+        if (row < 0 || !store.customer(row).equals(customer)) {
+            throw new IllegalArgumentException("Error, no reservation found for that stay.");
+        }
+        return row;
+    }
+
+    private void unindex(RoomCalendar calendar, Reservation reservation, int row) {
+        boolean removed = calendar.remove(reservation.getCheckInDay(), row);
+        occupancy.unmark(reservation.getiRoom(), reservation.getCheckInDay(), reservation.getCheckOutDay(),
+                calendar.stays());
+        RowList rows = reservationsByEmail.get(reservation.getCustomer().getEmail());
+        if (rows != null) {
+            rows.remove(row);
+        }
+        if (removed) {
+            // No index leads to the row any more, so a later booking may reuse it.
+            store.free(row);
+        }
+    }
+
+    public Collection<IRoom> findRooms(LocalDate checkInDate, LocalDate checkOutDate){
+        return occupancy.current().freeRooms((int) checkInDate.toEpochDay(), (int) checkOutDate.toEpochDay());
+    }
+
+    // Narrows the rooms by type, price and free flag first, then checks only
+    // those rooms against one occupancy version.
+    public Collection<IRoom> findRooms(RoomSearch search){
+        int checkInDay = (int) search.getCheckInDate().toEpochDay();
+        int checkOutDay = (int) search.getCheckOutDate().toEpochDay();
+        OccupancyCalendar.Version version = occupancy.current();
+        List<IRoom> available = new ArrayList<>();
+        for (IRoom room : catalog.matching(search)) {
+            if (version.isFree(occupancy.indexOf(room), checkInDay, checkOutDay)) {
+                available.add(room);
+            }
+        }
+        return available;
+    }
+
+    // Same-length stays up to maxShiftDays earlier or later that still have free
+    // rooms, nearest to the requested dates first. Shifted stays that could not
+    // be booked, starting before today or ending past the booking window, are
+    // left out.
+    public List<AlternativeStay> alternativeStays(LocalDate checkInDate, LocalDate checkOutDate, int maxShiftDays){
+        int checkInDay = (int) checkInDate.toEpochDay();
+        int checkOutDay = (int) checkOutDate.toEpochDay();
+        if (checkOutDay <= checkInDay || maxShiftDays < 1) {
+            return Collections.emptyList();
+        }
+        List<List<IRoom>> freeByShift = occupancy.current().freeRoomsByShift(checkInDay, checkOutDay, maxShiftDays);
+        List<AlternativeStay> alternatives = new ArrayList<>();
+        for (int distance = 1; distance <= maxShiftDays; distance++) {
+            for (int shift : new int[] {-distance, distance}) {
+                LocalDate shiftedCheckIn = checkInDate.plusDays(shift);
+                LocalDate shiftedCheckOut = checkOutDate.plusDays(shift);
+                List<IRoom> rooms = freeByShift.get(shift + maxShiftDays);
+                if (!rooms.isEmpty() && isBookable(shiftedCheckIn, shiftedCheckOut)) {
+                    alternatives.add(new AlternativeStay(shiftedCheckIn, shiftedCheckOut, rooms));
                 }
             }
-            findAvailableRooms.add(room);
         }
-        System.out.println(findAvailableRooms);
-        return findAvailableRooms;
+        return alternatives;
+    }
+
+    // Call before the service takes bookings: rows added during the scan would be missed.
+    void rebuildRollup() {
+        rollup.replaceWith(DailyRollup.scan(store));
+        rates.clear();
+    }
+
+    public void setPricingRules(PricingRules pricingRules) {
+        rates.setRules(pricingRules);
+    }
+
+    // Price of the stay at the current nightly rates, which follow occupancy.
+    // A booking made now is charged the same total. Priced from the room as
+    // it was added, not from the caller's copy of it.
+    public double quote(IRoom room, LocalDate checkInDate, LocalDate checkOutDate) {
+        IRoom registered = room == null ? null : mapOfRooms.get(room.getRoomNumber());
+        if (registered == null) {
+            throw new IllegalArgumentException("Error, no room found with that number.");
+        }
+        if (!checkOutDate.isAfter(checkInDate)) {
+            throw new IllegalArgumentException("Error, check out must be after check in.");
+        }
+        return rates.quote(registered, (int) checkInDate.toEpochDay(), (int) checkOutDate.toEpochDay());
+    }
+
+    public OccupancyReport occupancyReport(LocalDate from, LocalDate to) {
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("Error, report range must end after it starts.");
+        }
+        return rollup.report(from, to, catalog.facets().getRoomsByType());
+    }
+
+    public RoomFacets roomFacets() {
+        return catalog.facets();
     }
 
     public Collection<Reservation> getCustomersReservation(Customer customer){
+        if (customer == null) {
+            return Collections.emptyList();
+        }
+        RowList rows = reservationsByEmail.get(customer.getEmail());
+        if (rows == null) {
+            return Collections.emptyList();
+        }
         List<Reservation> reservationsByCustomer = new ArrayList<>();
-        for(Reservation reservation : reservations){
-            if(reservation.getCustomer().equals(customer)){
+        for (int row : rows.toArray()) {
+            // Rows cancelled since the list was read may already hold someone else's stay.
+            Reservation reservation = store.read(row);
+            if (reservation != null && reservation.getCustomer().equals(customer)) {
                 reservationsByCustomer.add(reservation);
             }
         }
         return reservationsByCustomer;
     }
 
-    public void printAllReservation(){
-        for(Reservation reservation : reservations){
-            System.out.println(reservation);
-        }
+    ReservationStore store() {
+        return store;
     }
+
+    // Every room in the current room table.
     public Collection<IRoom> allRooms() {
-        return mapOfRooms.values();
+        return occupancy.current().rooms();
     }
 
+    // Every stay in one occupancy version, so the listing matches what a
+    // search at the same moment would have seen. Rows the version indexes are
+    // kept from reuse until the listing has read them.
+    public Collection<Reservation> allReservations() {
+        store.beginListing();
+        try {
+            int[] rows = occupancy.current().rows();
+            List<Reservation> reservations = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                reservations.add(store.listed(row));
+            }
+            return reservations;
+        } finally {
+            store.endListing();
+        }
+    }
 
+    static final class Booking {
+        final Reservation reservation;
+        final long sequence;
+
+        Booking(Reservation reservation, long sequence) {
+            this.reservation = reservation;
+            this.sequence = sequence;
+        }
+    }
+
+    static final class DateChange {
+        final Reservation previous;
+        final Reservation moved;
+
+        DateChange(Reservation previous, Reservation moved) {
+            this.previous = previous;
+            this.moved = moved;
+        }
+    }
 }
@@ -0,0 +1,253 @@
+package service;
+
+import model.Customer;
+import model.IRoom;
+import model.Reservation;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+
+// Every reservation of a shard kept column-wise in parallel arrays (room,
+// customer, check-in day, a stay word and the booked nightly price): 24 bytes
+// per row and no object per booking. Rooms and customers are stored once in
+// lookup tables and rows refer to them by index. Reservation objects are only
+// built when read.
+//
+// Rows are written under a lock and published through the volatile size, so
+// readers scan without locking. Cancelling a row marks it empty at once;
+// once every index has dropped the row, free() hands it back and the next
+// booking reuses it. A store under heavy cancellation therefore stays at its
+// peak number of live stays instead of growing with every booking ever made.
+//
+// The stay word packs the nights (low 22 bits), a cancelled flag and a
+// generation (high 9 bits) that moves on at each cancellation. Readers that
+// do not hold the room's lock use read(), which re-checks the word after
+// reading the row and gives up if the row was cancelled or reused meanwhile,
+// like a seqlock. Cancelling keeps the nights, so a listing working from an
+// occupancy version captured before the cancellation still reads the stay
+// whole; while any listing runs, freed rows are held back from reuse.
+class ReservationStore {
+
+    private static final int NIGHT_BITS = 22;
+    private static final int NIGHTS_MASK = (1 << NIGHT_BITS) - 1;
+    private static final int CANCELLED = 1 << NIGHT_BITS;
+    private static final int GENERATION_MASK = -1 << (NIGHT_BITS + 1);
+    private static final VarHandle STAY = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final Table<IRoom> rooms = new Table<>();
+    private final Table<Customer> customers = new Table<>();
+    private volatile Columns columns = new Columns(1024);
+    private volatile int size;
+    private int[] freeRows = new int[16];
+    private int freeCount;
+    private int listings;
+    private int[] heldRows = new int[16];
+    private int heldCount;
+
+    public synchronized void putRoom(IRoom room) {
+        rooms.put(roomKey(room), room);
+    }
+
+    // Rooms are keyed by type as well as number: a room re-added under another
+    // type gets a new entry, so rows booked before still read back the type
+    // they were counted under when they are cancelled or moved.
+    private static String roomKey(IRoom room) {
+        return room.getRoomType().name() + ' ' + room.getRoomNumber();
+    }
+
+    public synchronized int add(Reservation reservation) {
+        int nights = reservation.getCheckOutDay() - reservation.getCheckInDay();
+        if (nights <= 0 || nights > NIGHTS_MASK) {
+            throw new IllegalArgumentException("Error, a stay must last between 1 and " + NIGHTS_MASK + " nights.");
+        }
+        Columns current = columns;
+        int row;
+        if (freeCount > 0) {
+            row = freeRows[--freeCount];
+        } else {
+            row = size;
+            if (row == current.room.length) {
+                current = current.copy(row * 2);
+                columns = current;
+            }
+        }
+        current.room[row] = rooms.put(roomKey(reservation.getiRoom()), reservation.getiRoom());
+        current.customer[row] = customers.put(reservation.getCustomer().getEmail(), reservation.getCustomer());
+        current.checkIn[row] = reservation.getCheckInDay();
+        current.price[row] = reservation.getPrice();
+        // Released last, so a reader that sees the new word also sees the row under it.
+        STAY.setRelease(current.stay, row, (current.stay[row] & GENERATION_MASK) | nights);
+        size = Math.max(size, row + 1);
+        return row;
+    }
+
+    // Empties the row for every reader. The row is not reused until free().
+    public synchronized void cancel(int row) {
+        int[] stay = columns.stay;
+        int word = stay[row];
+        STAY.setVolatile(stay, row, ((word & GENERATION_MASK) + (CANCELLED << 1)) | CANCELLED | (word & NIGHTS_MASK));
+        // Keep the new row contents from being seen before the empty word.
+        VarHandle.storeStoreFence();
+    }
+
+    // Hands a cancelled row back for reuse. Callers first remove it from every
+    // index that a reader could still follow to it under its old contents.
+    // A row freed while a listing runs is held until the last listing ends.
+    public synchronized void free(int row) {
+        if (listings > 0) {
+            if (heldCount == heldRows.length) {
+                heldRows = Arrays.copyOf(heldRows, heldCount * 2);
+            }
+            heldRows[heldCount++] = row;
+            return;
+        }
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+    }
+
+    // A listing begins before it captures its occupancy version. Rows that
+    // version indexes were not yet freed when it was captured, so none of
+    // them is reused before endListing().
+    public synchronized void beginListing() {
+        listings++;
+    }
+
+    public synchronized void endListing() {
+        if (--listings > 0) {
+            return;
+        }
+        int held = heldCount;
+        heldCount = 0;
+        for (int i = 0; i < held; i++) {
+            free(heldRows[i]);
+        }
+    }
+
+    public boolean isCancelled(int row) {
+        return (columns.stay[row] & CANCELLED) != 0;
+    }
+
+    // Rows ever used, including cancelled ones; live stays are at most this many.
+    public int size() {
+        return size;
+    }
+
+    public int checkInDay(int row) {
+        return columns.checkIn[row];
+    }
+
+    public int checkOutDay(int row) {
+        Columns current = columns;
+        return current.checkIn[row] + (current.stay[row] & NIGHTS_MASK);
+    }
+
+    public IRoom room(int row) {
+        return rooms.get(columns.room[row]);
+    }
+
+    public Customer customer(int row) {
+        return customers.get(columns.customer[row]);
+    }
+
+    public double price(int row) {
+        return columns.price[row];
+    }
+
+    // For callers holding the lock of the row's room, so the row cannot change.
+    public Reservation get(int row) {
+        Columns current = columns;
+        int checkInDay = current.checkIn[row];
+        return new Reservation(customers.get(current.customer[row]), rooms.get(current.room[row]),
+                checkInDay, checkInDay + (current.stay[row] & NIGHTS_MASK), current.price[row]);
+    }
+
+    // For readers without the room's lock. Returns null when the row holds no
+    // stay, or was cancelled or reused while it was being read.
+    public Reservation read(int row) {
+        Columns current = columns;
+        int stay = (int) STAY.getAcquire(current.stay, row);
+        int nights = stay & NIGHTS_MASK;
+        if (nights == 0 || (stay & CANCELLED) != 0) {
+            return null;
+        }
+        int checkInDay = current.checkIn[row];
+        IRoom room = rooms.get(current.room[row]);
+        Customer customer = customers.get(current.customer[row]);
+        double price = current.price[row];
+        VarHandle.loadLoadFence();
+        if ((int) STAY.getAcquire(current.stay, row) != stay) {
+            return null;
+        }
+        return new Reservation(customer, room, checkInDay, checkInDay + nights, price);
+    }
+
+    // For listings, between beginListing() and endListing(), of rows their
+    // occupancy version indexes. The row may have been cancelled since, but
+    // cannot have been reused, so it still holds that stay.
+    public Reservation listed(int row) {
+        Columns current = columns;
+        int checkInDay = current.checkIn[row];
+        int nights = (int) STAY.getAcquire(current.stay, row) & NIGHTS_MASK;
+        return new Reservation(customers.get(current.customer[row]), rooms.get(current.room[row]),
+                checkInDay, checkInDay + nights, current.price[row]);
+    }
+
+    private static final class Columns {
+        final int[] room;
+        final int[] customer;
+        final int[] checkIn;
+        final int[] stay;
+        final double[] price;
+
+        Columns(int capacity) {
+            room = new int[capacity];
+            customer = new int[capacity];
+            checkIn = new int[capacity];
+            stay = new int[capacity];
+            price = new double[capacity];
+        }
+
+        private Columns(int[] room, int[] customer, int[] checkIn, int[] stay, double[] price) {
+            this.room = room;
+            this.customer = customer;
+            this.checkIn = checkIn;
+            this.stay = stay;
+            this.price = price;
+        }
+
+        Columns copy(int capacity) {
+            return new Columns(Arrays.copyOf(room, capacity), Arrays.copyOf(customer, capacity),
+                    Arrays.copyOf(checkIn, capacity), Arrays.copyOf(stay, capacity), Arrays.copyOf(price, capacity));
+        }
+    }
+
+    // Dense index for a keyed value. Writers hold the store's lock; readers only
+    // look up indices that a published row already refers to.
+    private static final class Table<T> {
+        private final Map<String, Integer> indexByKey = new HashMap<>();
+        private volatile Object[] values = new Object[16];
+
+        int put(String key, T value) {
+            Integer index = indexByKey.get(key);
+            Object[] current = values;
+            if (index == null) {
+                index = indexByKey.size();
+                indexByKey.put(key, index);
+                if (index == current.length) {
+                    current = Arrays.copyOf(current, index * 2);
+                }
+            }
+            current[index] = value;
+            values = current;
+            return index;
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(int index) {
+            return (T) values[index];
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package service;
+
+import model.Reservation;
+
+// Occupied stays of a single room: an immutable map from check-in epoch day
+// to reservation store row, kept as a B+tree over primitive int arrays.
+// Stays never overlap, so the stay with the latest check-in before a given
+// check-out is the only one that can collide with a new stay.
+// Writers lock only this room and publish a new map, copying just the path
+// to one leaf, so booking or cancelling is O(log k). Searches read the
+// current map without locking.
+class RoomCalendar {
+
+    private final ReservationStore store;
+    private volatile IntTreeMap stays = IntTreeMap.EMPTY;
+
+    RoomCalendar(ReservationStore store) {
+        this.store = store;
+    }
+
+    public boolean isFree(int checkInDay, int checkOutDay) {
+        int previous = stays.lowerValue(checkOutDay);
+        return previous < 0 || store.checkOutDay(previous) <= checkInDay;
+    }
+
+    // Same check, treating the stay that starts on ignoredCheckInDay as already gone.
+    private boolean isFreeIgnoring(int checkInDay, int checkOutDay, int ignoredCheckInDay) {
+        IntTreeMap current = stays;
+        int previous = current.lowerValue(checkOutDay);
+        if (previous >= 0 && store.checkInDay(previous) == ignoredCheckInDay) {
+            previous = current.lowerValue(ignoredCheckInDay);
+        }
+        return previous < 0 || store.checkOutDay(previous) <= checkInDay;
+    }
+
+    // Returns the new store row, or -1 when the stay overlaps an existing one.
+    public synchronized int add(Reservation reservation) {
+        if (!isFree(reservation.getCheckInDay(), reservation.getCheckOutDay())) {
+            return -1;
+        }
+        int row = store.add(reservation);
+        stays = stays.put(reservation.getCheckInDay(), row);
+        return row;
+    }
+
+    // The current map, for the occupancy versions that carry it.
+    public IntTreeMap stays() {
+        return stays;
+    }
+
+    // Store row of the stay starting on that day, or -1.
+    public int rowAt(int checkInDay) {
+        return stays.get(checkInDay);
+    }
+
+    // Returns whether the stay was there and its row is now cancelled.
+    public synchronized boolean remove(int checkInDay, int row) {
+        IntTreeMap current = stays;
+        if (current.get(checkInDay) != row) {
+            return false;
+        }
+        stays = current.remove(checkInDay);
+        store.cancel(row);
+        return true;
+    }
+
+    // Whether the stay in the given row could move to the new dates. Callers
+    // holding this calendar's lock can rely on the answer until they release it.
+    public synchronized boolean canMove(int row, Reservation moved) {
+        return isFreeIgnoring(moved.getCheckInDay(), moved.getCheckOutDay(), store.checkInDay(row));
+    }
+
+    // Moves the stay in the given row to new dates. The new stay is published in
+    // the same swap that drops the old one, so searches never see the room
+    // free on nights it is booked. Returns the new store row, or -1 when the new
+    // dates collide.
+    public synchronized int move(int row, Reservation moved) {
+        int oldCheckInDay = store.checkInDay(row);
+        if (!canMove(row, moved)) {
+            return -1;
+        }
+        int newRow = store.add(moved);
+        IntTreeMap current = stays;
+        if (current.get(oldCheckInDay) == row) {
+            current = current.remove(oldCheckInDay);
+        }
+        stays = current.put(moved.getCheckInDay(), newRow);
+        store.cancel(row);
+        return newRow;
+    }
+}
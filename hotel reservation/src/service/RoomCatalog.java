@@ -0,0 +1,94 @@
+package service;
+
+import model.IRoom;
+import model.RoomType;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Rooms indexed by type and sorted by price, with the facet counts kept up to
+// date as rooms are added or replaced.
+class RoomCatalog {
+
+    private final Map<RoomType, ConcurrentNavigableMap<PriceKey, IRoom>> roomsByType = new EnumMap<>(RoomType.class);
+    private final Map<RoomType, AtomicInteger> countByType = new EnumMap<>(RoomType.class);
+    private final Map<Double, AtomicInteger> countByPriceBand = new ConcurrentHashMap<>();
+
+    RoomCatalog() {
+        for (RoomType roomType : RoomType.values()) {
+            roomsByType.put(roomType, new ConcurrentSkipListMap<>());
+            countByType.put(roomType, new AtomicInteger());
+        }
+    }
+
+    public void put(IRoom previous, IRoom room) {
+        if (previous != null) {
+            roomsByType.get(previous.getRoomType()).remove(PriceKey.of(previous));
+            countByType.get(previous.getRoomType()).decrementAndGet();
+            countByPriceBand.get(RoomFacets.priceBandOf(previous.getRoomPrice())).decrementAndGet();
+        }
+        roomsByType.get(room.getRoomType()).put(PriceKey.of(room), room);
+        countByType.get(room.getRoomType()).incrementAndGet();
+        countByPriceBand.computeIfAbsent(RoomFacets.priceBandOf(room.getRoomPrice()), band -> new AtomicInteger())
+                .incrementAndGet();
+    }
+
+    // Rooms that pass the type, price and free filters, cheapest first within each type.
+    public List<IRoom> matching(RoomSearch search) {
+        List<IRoom> matching = new ArrayList<>();
+        PriceKey from = new PriceKey(search.getMinPrice(), "");
+        for (RoomType roomType : RoomType.values()) {
+            if (search.getRoomType() != null && search.getRoomType() != roomType) {
+                continue;
+            }
+            for (IRoom room : roomsByType.get(roomType).tailMap(from, true).values()) {
+                if (room.getRoomPrice() > search.getMaxPrice()) {
+                    break;
+                }
+                if (search.getFree() == null || search.getFree() == room.isFree()) {
+                    matching.add(room);
+                }
+            }
+        }
+        return matching;
+    }
+
+    public int count(RoomType roomType) {
+        return countByType.get(roomType).get();
+    }
+
+    public RoomFacets facets() {
+        Map<RoomType, Integer> roomsByType = new EnumMap<>(RoomType.class);
+        countByType.forEach((type, count) -> roomsByType.put(type, count.get()));
+        SortedMap<Double, Integer> roomsByPriceBand = new TreeMap<>();
+        countByPriceBand.forEach((band, count) -> {
+            if (count.get() > 0) {
+                roomsByPriceBand.put(band, count.get());
+            }
+        });
+        return new RoomFacets(roomsByType, roomsByPriceBand);
+    }
+
+    private static final class PriceKey implements Comparable<PriceKey> {
+        private final double price;
+        private final String roomNumber;
+
+        PriceKey(double price, String roomNumber) {
+            this.price = price;
+            this.roomNumber = roomNumber;
+        }
+
+        static PriceKey of(IRoom room) {
+            return new PriceKey(room.getRoomPrice(), room.getRoomNumber());
+        }
+
+        @Override
+        public int compareTo(PriceKey other) {
+            int byPrice = Double.compare(price, other.price);
+            return byPrice != 0 ? byPrice : roomNumber.compareTo(other.roomNumber);
+        }
+    }
+}
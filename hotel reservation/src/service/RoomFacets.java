@@ -0,0 +1,47 @@
+package service;
+
+import model.RoomType;
+
+import java.util.*;
+
+// Number of rooms per room type and per price band. Each band is keyed by its
+// lower bound and is PRICE_BAND_WIDTH wide.
+public class RoomFacets {
+
+    public static final double PRICE_BAND_WIDTH = 50.0;
+
+    private final Map<RoomType, Integer> roomsByType;
+    private final SortedMap<Double, Integer> roomsByPriceBand;
+
+    public RoomFacets(Map<RoomType, Integer> roomsByType, SortedMap<Double, Integer> roomsByPriceBand) {
+        this.roomsByType = Collections.unmodifiableMap(new EnumMap<>(roomsByType));
+        this.roomsByPriceBand = Collections.unmodifiableSortedMap(new TreeMap<>(roomsByPriceBand));
+    }
+
+    public static double priceBandOf(double price) {
+        return Math.floor(price / PRICE_BAND_WIDTH) * PRICE_BAND_WIDTH;
+    }
+
+    public static RoomFacets merge(Collection<RoomFacets> parts) {
+        Map<RoomType, Integer> roomsByType = new EnumMap<>(RoomType.class);
+        SortedMap<Double, Integer> roomsByPriceBand = new TreeMap<>();
+        for (RoomFacets part : parts) {
+            part.roomsByType.forEach((type, count) -> roomsByType.merge(type, count, Integer::sum));
+            part.roomsByPriceBand.forEach((band, count) -> roomsByPriceBand.merge(band, count, Integer::sum));
+        }
+        return new RoomFacets(roomsByType, roomsByPriceBand);
+    }
+
+    public Map<RoomType, Integer> getRoomsByType() {
+        return roomsByType;
+    }
+
+    public SortedMap<Double, Integer> getRoomsByPriceBand() {
+        return roomsByPriceBand;
+    }
+
+    @Override
+    public String toString() {
+        return "Rooms by type: " + roomsByType + "  Rooms by price band: " + roomsByPriceBand;
+    }
+}
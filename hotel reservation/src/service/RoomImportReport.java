@@ -0,0 +1,38 @@
+package service;
+
+import java.util.Collections;
+import java.util.List;
+
+public class RoomImportReport {
+    private final int importedRooms;
+    private final List<String> rejectedRows;
+    private final long elapsedNanos;
+
+    public RoomImportReport(int importedRooms, List<String> rejectedRows, long elapsedNanos) {
+        this.importedRooms = importedRooms;
+        this.rejectedRows = Collections.unmodifiableList(rejectedRows);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getImportedRooms() {
+        return importedRooms;
+    }
+
+    public List<String> getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : (importedRooms + rejectedRows.size()) * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Imported rooms: " + importedRooms + "  Rejected rows: " + rejectedRows.size() +
+                "  Rows per second: " + Math.round(getRowsPerSecond());
+    }
+}
@@ -0,0 +1,135 @@
+package service;
+
+import model.FreeRoom;
+import model.IRoom;
+import model.Room;
+import model.RoomType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Loads rooms from a CSV file with the columns roomNumber,price,roomType[,free].
+// Rows are read in chunks and validated in parallel; the accepted rooms are
+// handed to the hotel engine in one batch at the end.
+public class RoomImporter {
+
+    private static final int CHUNK_ROWS = 8192;
+
+    private final HotelEngine hotelEngine;
+
+    public RoomImporter(HotelEngine hotelEngine) {
+        this.hotelEngine = hotelEngine;
+    }
+
+    public RoomImportReport importRooms(Path csvFile) throws IOException {
+        long start = System.nanoTime();
+        List<IRoom> rooms = new ArrayList<>();
+        List<String> rejectedRows = new ArrayList<>();
+        Set<String> roomNumbers = new HashSet<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            List<String> chunk = new ArrayList<>(CHUNK_ROWS);
+            int firstLine = 1;
+            String line = reader.readLine();
+            if (line != null && line.toLowerCase(Locale.ROOT).startsWith("roomnumber")) {
+                firstLine++;
+                line = reader.readLine();
+            }
+            while (line != null) {
+                chunk.add(line);
+                line = reader.readLine();
+                if (chunk.size() == CHUNK_ROWS || line == null) {
+                    Object[] parsed = parseChunk(chunk);
+                    for (int i = 0; i < parsed.length; i++) {
+                        int lineNumber = firstLine + i;
+                        if (parsed[i] instanceof String) {
+                            rejectedRows.add("Line " + lineNumber + ": " + parsed[i]);
+                        } else if (parsed[i] != null) {
+                            IRoom room = (IRoom) parsed[i];
+                            if (roomNumbers.add(room.getRoomNumber())) {
+                                rooms.add(room);
+                            } else {
+                                rejectedRows.add("Line " + lineNumber + ": duplicate room number " + room.getRoomNumber());
+                            }
+                        }
+                    }
+                    firstLine += chunk.size();
+                    chunk.clear();
+                }
+            }
+        }
+
+        hotelEngine.addRooms(rooms);
+        return new RoomImportReport(rooms.size(), rejectedRows, System.nanoTime() - start);
+    }
+
+    // Each slot holds the parsed room, the rejection reason, or null for a blank line.
+    private static Object[] parseChunk(List<String> chunk) {
+        Object[] parsed = new Object[chunk.size()];
+        IntStream.range(0, chunk.size()).parallel().forEach(i -> {
+            try {
+                parsed[i] = parseRoom(chunk.get(i));
+            } catch (IllegalArgumentException e) {
+                parsed[i] = e.getMessage();
+            }
+        });
+        return parsed;
+    }
+
+    private static IRoom parseRoom(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        String[] columns = line.split(",", -1);
+        if (columns.length < 3 || columns.length > 4) {
+            throw new IllegalArgumentException("expected roomNumber,price,roomType[,free]");
+        }
+        String roomNumber = columns[0].trim();
+        if (roomNumber.isEmpty()) {
+            throw new IllegalArgumentException("missing room number");
+        }
+        double price;
+        try {
+            price = Double.parseDouble(columns[1].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid price " + columns[1].trim());
+        }
+        if (!(price >= 0) || Double.isInfinite(price)) {
+            throw new IllegalArgumentException("invalid price " + columns[1].trim());
+        }
+        RoomType roomType = null;
+        for (RoomType type : RoomType.values()) {
+            if (type.name().equalsIgnoreCase(columns[2].trim())) {
+                roomType = type;
+            }
+        }
+        if (roomType == null) {
+            throw new IllegalArgumentException("invalid room type " + columns[2].trim());
+        }
+        boolean free = columns.length == 4 && parseFree(columns[3].trim());
+        // FreeRoom has no price, so a priced free row would silently lose it.
+        if (free && price != 0) {
+            throw new IllegalArgumentException("free room with price " + columns[1].trim());
+        }
+        return free ? new FreeRoom(roomNumber, roomType) : new Room(roomNumber, price, roomType);
+    }
+
+    // Only the exact words, so a typo is rejected instead of importing a paid room.
+    // An empty column is the same as leaving it out.
+    private static boolean parseFree(String value) {
+        switch (value) {
+            case "true":
+                return true;
+            case "false":
+            case "":
+                return false;
+            default:
+                throw new IllegalArgumentException("invalid free flag " + value);
+        }
+    }
+}
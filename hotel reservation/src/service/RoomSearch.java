@@ -0,0 +1,108 @@
+package service;
+
+import model.RoomType;
+
+import java.time.LocalDate;
+
+public final class RoomSearch {
+    private final LocalDate checkInDate;
+    private final LocalDate checkOutDate;
+    private final RoomType roomType;
+    private final double minPrice;
+    private final double maxPrice;
+    private final Boolean free;
+
+    private RoomSearch(
+            LocalDate checkInDate,
+            LocalDate checkOutDate,
+            RoomType roomType,
+            double minPrice,
+            double maxPrice,
+            Boolean free) {
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+        this.roomType = roomType;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.free = free;
+    }
+
+    public LocalDate getCheckInDate() {
+        return checkInDate;
+    }
+
+    public LocalDate getCheckOutDate() {
+        return checkOutDate;
+    }
+
+    // null matches every room type
+    public RoomType getRoomType() {
+        return roomType;
+    }
+
+    public double getMinPrice() {
+        return minPrice;
+    }
+
+    public double getMaxPrice() {
+        return maxPrice;
+    }
+
+    // null matches free and paid rooms alike
+    public Boolean getFree() {
+        return free;
+    }
+
+    @Override
+    public String toString() {
+        return "RoomSearch{" +
+                "checkInDate=" + checkInDate +
+                ", checkOutDate=" + checkOutDate +
+                ", roomType=" + roomType +
+                ", minPrice=" + minPrice +
+                ", maxPrice=" + maxPrice +
+                ", free=" + free +
+                '}';
+    }
+
+    public static final class Builder {
+        private final LocalDate checkInDate;
+        private final LocalDate checkOutDate;
+        private RoomType roomType = null;
+        private double minPrice = 0;
+        private double maxPrice = Double.MAX_VALUE;
+        private Boolean free = null;
+
+        public Builder(LocalDate checkInDate, LocalDate checkOutDate) {
+            this.checkInDate = checkInDate;
+            this.checkOutDate = checkOutDate;
+        }
+
+        public Builder setRoomType(RoomType roomType) {
+            this.roomType = roomType;
+            return this;
+        }
+
+        public Builder setMinPrice(double minPrice) {
+            this.minPrice = minPrice;
+            return this;
+        }
+
+        public Builder setMaxPrice(double maxPrice) {
+            this.maxPrice = maxPrice;
+            return this;
+        }
+
+        public Builder setFree(Boolean free) {
+            this.free = free;
+            return this;
+        }
+
+        public RoomSearch build() {
+            if (minPrice > maxPrice) {
+                throw new IllegalArgumentException("Error, minimum price is above maximum price.");
+            }
+            return new RoomSearch(checkInDate, checkOutDate, roomType, minPrice, maxPrice, free);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package service;
+
+import model.RoomType;
+
+// Room nights and revenue of one room type over a date range.
+public class RoomTypeStats {
+    private final RoomType roomType;
+    private final long roomNightsAvailable;
+    private final long roomNightsSold;
+    private final double revenue;
+
+    public RoomTypeStats(RoomType roomType, long roomNightsAvailable, long roomNightsSold, double revenue) {
+        this.roomType = roomType;
+        this.roomNightsAvailable = roomNightsAvailable;
+        this.roomNightsSold = roomNightsSold;
+        this.revenue = revenue;
+    }
+
+    public RoomType getRoomType() {
+        return roomType;
+    }
+
+    public long getRoomNightsAvailable() {
+        return roomNightsAvailable;
+    }
+
+    public long getRoomNightsSold() {
+        return roomNightsSold;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public double getOccupancyRate() {
+        return roomNightsAvailable == 0 ? 0 : (double) roomNightsSold / roomNightsAvailable;
+    }
+
+    // ADR: revenue per room night sold
+    public double getAverageDailyRate() {
+        return roomNightsSold == 0 ? 0 : revenue / roomNightsSold;
+    }
+
+    // RevPAR: revenue per room night available
+    public double getRevPar() {
+        return roomNightsAvailable == 0 ? 0 : revenue / roomNightsAvailable;
+    }
+
+    RoomTypeStats plus(RoomTypeStats other) {
+        return new RoomTypeStats(roomType, roomNightsAvailable + other.roomNightsAvailable,
+                roomNightsSold + other.roomNightsSold, revenue + other.revenue);
+    }
+
+    @Override
+    public String toString() {
+        return roomType + ": occupancy " + Math.round(getOccupancyRate() * 1000) / 10.0 + "%" +
+                "  ADR " + Math.round(getAverageDailyRate() * 100) / 100.0 +
+                "  RevPAR " + Math.round(getRevPar() * 100) / 100.0;
+    }
+}
@@ -0,0 +1,9 @@
+package service;
+
+public class RoomUnavailableException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    public RoomUnavailableException(String message) {
+        super(message);
+    }
+}
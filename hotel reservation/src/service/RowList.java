@@ -0,0 +1,24 @@
+package service;
+
+// Sorted set of reservation store rows. Rows can arrive out of order when
+// bookings for different rooms race, so they are kept in an IntTreeMap:
+// add and remove are O(log k), and toArray reads the current version
+// without taking the lock.
+class RowList {
+
+    private volatile IntTreeMap rows = IntTreeMap.EMPTY;
+
+    public synchronized void add(int row) {
+        rows = rows.put(row, row);
+    }
+
+    public synchronized boolean remove(int row) {
+        IntTreeMap current = rows;
+        rows = current.remove(row);
+        return rows != current;
+    }
+
+    public int[] toArray() {
+        return rows.values();
+    }
+}
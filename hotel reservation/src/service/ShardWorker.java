@@ -0,0 +1,75 @@
+package service;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+// Single-threaded event loop that owns one reservation shard. Callers hand
+// it work through a lock-free queue and get the result as a future.
+class ShardWorker {
+
+    private final ReservationService reservationService = new ReservationService();
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    ShardWorker(String name) {
+        thread = new Thread(this::runLoop, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    ReservationService getReservationService() {
+        return reservationService;
+    }
+
+    <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (!running) {
+            result.completeExceptionally(stopped());
+            return result;
+        }
+        Runnable runnable = () -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        };
+        tasks.add(runnable);
+        // Lost a race with shutdown: if the loop never picked the task up, nothing will.
+        if (!running && tasks.remove(runnable)) {
+            result.completeExceptionally(stopped());
+            return result;
+        }
+        LockSupport.unpark(thread);
+        return result;
+    }
+
+    void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private IllegalStateException stopped() {
+        return new IllegalStateException("Error, " + thread.getName() + " has been shut down.");
+    }
+
+    private void runLoop() {
+        while (running || !tasks.isEmpty()) {
+            Runnable task = tasks.poll();
+            if (task == null) {
+                LockSupport.park(this);
+            } else {
+                task.run();
+            }
+        }
+    }
+}
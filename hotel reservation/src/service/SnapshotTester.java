@@ -0,0 +1,53 @@
+package service;
+
+import model.Customer;
+import model.Room;
+import model.RoomType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+// Books a room, retypes it, and checks that a snapshot round trip still counts
+// the stay under the type it was booked as.
+public class SnapshotTester {
+    public static void main(String[] args) throws Exception {
+        ReservationService reservationService = new ReservationService();
+        CustomerService customerService = new CustomerService();
+        reservationService.addRoom(new Room("101", 100.0, RoomType.Single));
+        customerService.addCustomer("guest@domain.com", "first", "second");
+        Customer customer = customerService.getCustomer("guest@domain.com");
+        LocalDate checkIn = LocalDate.now().plusDays(7);
+        reservationService.reserveARoom(customer, reservationService.getARoom("101"), checkIn, checkIn.plusDays(3));
+        reservationService.addRoom(new Room("101", 150.0, RoomType.Double));
+
+        Path directory = Files.createTempDirectory("snapshot-tester");
+        Path file = directory.resolve("hotel.snapshot");
+        ReservationService restored = new ReservationService();
+        try {
+            MappedSnapshot.write(file, reservationService, customerService);
+            try (MappedSnapshot image = MappedSnapshot.open(file)) {
+                image.restoreInto(restored, new CustomerService());
+            }
+            restored.rebuildRollup();
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+
+        OccupancyReport before = reservationService.occupancyReport(checkIn, checkIn.plusDays(3));
+        OccupancyReport after = restored.occupancyReport(checkIn, checkIn.plusDays(3));
+        for (RoomType roomType : RoomType.values()) {
+            long soldBefore = before.getStatsByType().get(roomType).getRoomNightsSold();
+            long soldAfter = after.getStatsByType().get(roomType).getRoomNightsSold();
+            if (soldBefore != soldAfter) {
+                throw new IllegalStateException(roomType + " sold " + soldBefore + " nights before the snapshot and "
+                        + soldAfter + " after it");
+            }
+        }
+        if (after.getStatsByType().get(RoomType.Single).getRoomNightsSold() != 3) {
+            throw new IllegalStateException("The stay is no longer counted as a Single");
+        }
+        System.out.println("Retyped room's stay restored under its booked type");
+    }
+}
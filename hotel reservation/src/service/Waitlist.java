@@ -0,0 +1,109 @@
+package service;
+
+import model.Customer;
+import model.RoomType;
+
+import java.util.*;
+
+// Guests waiting for a room type, grouped by check-in night, each night a
+// priority queue. Freeing some nights only looks at the check-in nights whose
+// stays can overlap them, so an allocation pass never walks the whole list.
+class Waitlist {
+
+    static final int MAX_WAITERS_PER_NIGHT = 256;
+
+    private final Map<RoomType, NavigableMap<Integer, PriorityQueue<WaitlistRequest>>> waitersByType =
+            new EnumMap<>(RoomType.class);
+    private int longestStay = 1;
+    private long sequence;
+
+    Waitlist() {
+        for (RoomType roomType : RoomType.values()) {
+            waitersByType.put(roomType, new TreeMap<>());
+        }
+    }
+
+    public synchronized WaitlistRequest add(Customer customer, RoomType roomType, int checkInDay, int checkOutDay,
+                                            int priority, int today) {
+        NavigableMap<Integer, PriorityQueue<WaitlistRequest>> waiters = waitersByType.get(roomType);
+        purgeExpired(waiters, today);
+        PriorityQueue<WaitlistRequest> queue = waiters.computeIfAbsent(checkInDay, night -> new PriorityQueue<>());
+        if (queue.size() >= MAX_WAITERS_PER_NIGHT) {
+            throw new IllegalArgumentException("Error, the waitlist for those dates is full.");
+        }
+        WaitlistRequest request = new WaitlistRequest(customer, roomType, checkInDay, checkOutDay, priority, ++sequence);
+        queue.add(request);
+        longestStay = Math.max(longestStay, checkOutDay - checkInDay);
+        return request;
+    }
+
+    // Claims the request for an allocation attempt; false if another pass or the guest got there first.
+    public synchronized boolean remove(WaitlistRequest request) {
+        NavigableMap<Integer, PriorityQueue<WaitlistRequest>> waiters = waitersByType.get(request.getRoomType());
+        PriorityQueue<WaitlistRequest> queue = waiters.get(request.getCheckInDay());
+        if (queue == null || !queue.remove(request)) {
+            return false;
+        }
+        if (queue.isEmpty()) {
+            waiters.remove(request.getCheckInDay());
+        }
+        return true;
+    }
+
+    // Returns a claimed request whose allocation failed, ignoring the per-night cap.
+    public synchronized void putBack(WaitlistRequest request) {
+        waitersByType.get(request.getRoomType())
+                .computeIfAbsent(request.getCheckInDay(), night -> new PriorityQueue<>()).add(request);
+    }
+
+    // Waiting stays of the type that overlap [fromDay, toDay), best first, and
+    // at most the best perNight of them from each check-in night. Each queue
+    // is polled from the top until it has given perNight overlapping stays,
+    // and the polled requests go back in, so waiters further down are never
+    // looked at. Only check-in nights before fromDay can hold stays that end
+    // too early and get skipped.
+    public synchronized List<WaitlistRequest> candidates(RoomType roomType, int fromDay, int toDay, int today,
+                                                         int perNight) {
+        NavigableMap<Integer, PriorityQueue<WaitlistRequest>> waiters = waitersByType.get(roomType);
+        purgeExpired(waiters, today);
+        if (waiters.isEmpty() || fromDay >= toDay) {
+            return Collections.emptyList();
+        }
+        List<WaitlistRequest> candidates = new ArrayList<>();
+        List<WaitlistRequest> polled = new ArrayList<>();
+        for (PriorityQueue<WaitlistRequest> queue : waiters.subMap(fromDay - longestStay + 1, true, toDay, false).values()) {
+            int taken = 0;
+            while (taken < perNight && !queue.isEmpty()) {
+                WaitlistRequest request = queue.poll();
+                polled.add(request);
+                if (request.getCheckOutDay() > fromDay) {
+                    candidates.add(request);
+                    taken++;
+                }
+            }
+            queue.addAll(polled);
+            polled.clear();
+        }
+        Collections.sort(candidates);
+        return candidates;
+    }
+
+    // Requests for stays that have already started can never be served.
+    private static void purgeExpired(NavigableMap<Integer, PriorityQueue<WaitlistRequest>> waiters, int today) {
+        NavigableMap<Integer, PriorityQueue<WaitlistRequest>> expired = waiters.headMap(today, false);
+        for (PriorityQueue<WaitlistRequest> queue : expired.values()) {
+            queue.forEach(request -> request.getAllocation().cancel(false));
+        }
+        expired.clear();
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (NavigableMap<Integer, PriorityQueue<WaitlistRequest>> waiters : waitersByType.values()) {
+            for (PriorityQueue<WaitlistRequest> queue : waiters.values()) {
+                size += queue.size();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,74 @@
+package service;
+
+import model.Customer;
+import model.Reservation;
+import model.RoomType;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+// A guest waiting for any room of a type for fixed dates. Higher priority
+// (e.g. loyalty tier) is served first, then the earliest request.
+public class WaitlistRequest implements Comparable<WaitlistRequest> {
+    private final Customer customer;
+    private final RoomType roomType;
+    private final int checkInDay;
+    private final int checkOutDay;
+    private final int priority;
+    private final long sequence;
+    private final CompletableFuture<Reservation> allocation = new CompletableFuture<>();
+
+    WaitlistRequest(Customer customer, RoomType roomType, int checkInDay, int checkOutDay, int priority, long sequence) {
+        this.customer = customer;
+        this.roomType = roomType;
+        this.checkInDay = checkInDay;
+        this.checkOutDay = checkOutDay;
+        this.priority = priority;
+        this.sequence = sequence;
+    }
+
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    public RoomType getRoomType() {
+        return roomType;
+    }
+
+    public LocalDate getCheckInDate() {
+        return LocalDate.ofEpochDay(checkInDay);
+    }
+
+    public LocalDate getCheckOutDate() {
+        return LocalDate.ofEpochDay(checkOutDay);
+    }
+
+    int getCheckInDay() {
+        return checkInDay;
+    }
+
+    int getCheckOutDay() {
+        return checkOutDay;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    // Completes with the booking once a room is allocated; cancelled if the guest leaves the waitlist.
+    public CompletableFuture<Reservation> getAllocation() {
+        return allocation;
+    }
+
+    @Override
+    public int compareTo(WaitlistRequest other) {
+        int byPriority = Integer.compare(other.priority, priority);
+        return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+    }
+
+    @Override
+    public String toString() {
+        return "Waitlist: " + customer.getEmail() + " " + roomType + " " + getCheckInDate() + " to " +
+                getCheckOutDate() + " priority " + priority;
+    }
+}
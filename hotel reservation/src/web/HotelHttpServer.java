@@ -0,0 +1,220 @@
+package web;
+
+import api.HotelResource;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import model.IRoom;
+import service.HotelEngine;
+import service.RoomUnavailableException;
+
+import javax.management.JMException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Embedded HTTP front end for HotelResource.
+//
+//   GET  /rooms?checkIn=yyyy-MM-dd&checkOut=yyyy-MM-dd   free rooms for a stay
+//   GET  /room?number=101                                one room
+//   POST /reservations  email, room, checkIn, checkOut    book (form or query parameters)
+//   GET  /reservations?email=a@b.com                     a customer's reservations
+//
+// Embedders should launch with -Dsun.net.httpserver.nodelay=true; without
+// TCP_NODELAY small responses wait on the client's delayed ACK (~40ms each).
+public class HotelHttpServer {
+
+    // Dates further from today than this are rejected before reaching the hotel.
+    private static final int MAX_YEARS_FROM_TODAY = 10;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final HotelResource hotelResource;
+
+    public HotelHttpServer(HotelResource hotelResource, int port) throws IOException {
+        this.hotelResource = hotelResource;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+        server.setExecutor(executor);
+        server.createContext("/rooms", exchange -> handle(exchange, "GET", this::findRooms));
+        server.createContext("/room", exchange -> handle(exchange, "GET", this::getRoom));
+        server.createContext("/reservations", exchange -> handle(exchange, null, this::reservations));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private interface Handler {
+        Response handle(HttpExchange exchange, Map<String, String> parameters);
+    }
+
+    private static class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private Response findRooms(HttpExchange exchange, Map<String, String> parameters) {
+        LocalDate checkIn = date(parameters, "checkIn");
+        LocalDate checkOut = date(parameters, "checkOut");
+        try {
+            return new Response(200, Json.rooms(hotelResource.findARoom(checkIn, checkOut)));
+        } catch (IllegalArgumentException e) {
+            return new Response(400, Json.error(e.getMessage()));
+        }
+    }
+
+    private Response getRoom(HttpExchange exchange, Map<String, String> parameters) {
+        IRoom room = hotelResource.getRoom(required(parameters, "number"));
+        return room == null ? new Response(404, Json.error("No such room.")) : new Response(200, Json.room(room));
+    }
+
+    private Response reservations(HttpExchange exchange, Map<String, String> parameters) {
+        String method = exchange.getRequestMethod();
+        if (!"GET".equals(method) && !"POST".equals(method)) {
+            return new Response(405, Json.error("Method not allowed."));
+        }
+        String email = required(parameters, "email");
+        if ("GET".equals(method)) {
+            return new Response(200, Json.reservations(hotelResource.getCustomersReservations(email)));
+        }
+        IRoom room = hotelResource.getRoom(required(parameters, "room"));
+        LocalDate checkIn = date(parameters, "checkIn");
+        LocalDate checkOut = date(parameters, "checkOut");
+        if (room == null) {
+            return new Response(404, Json.error("No such room."));
+        }
+        try {
+            return new Response(201, Json.reservation(hotelResource.bookARoom(email, room, checkIn, checkOut)));
+        } catch (RoomUnavailableException e) {
+            return new Response(409, Json.error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return new Response(400, Json.error(e.getMessage()));
+        }
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        Response response;
+        try {
+            if (method != null && !method.equals(exchange.getRequestMethod())) {
+                response = new Response(405, Json.error("Method not allowed."));
+            } else {
+                response = handler.handle(exchange, parameters(exchange));
+            }
+        } catch (BadRequest e) {
+            response = new Response(400, Json.error(e.getMessage()));
+        } catch (RuntimeException e) {
+            // One line per failure: a stack dump on every request would swamp stderr under load.
+            System.err.println("Request " + exchange.getRequestMethod() + " "
+                    + exchange.getRequestURI().getPath() + " failed: " + e);
+            response = new Response(500, Json.error("Internal error."));
+        }
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static class BadRequest extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BadRequest(String message) {
+            super(message);
+        }
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new BadRequest("Missing parameter " + name + ".");
+        }
+        return value;
+    }
+
+    private static LocalDate date(Map<String, String> parameters, String name) {
+        LocalDate date;
+        try {
+            date = LocalDate.parse(required(parameters, name));
+        } catch (DateTimeParseException e) {
+            throw new BadRequest("Parameter " + name + " must be yyyy-MM-dd.");
+        }
+        LocalDate today = LocalDate.now();
+        if (date.isBefore(today.minusYears(MAX_YEARS_FROM_TODAY))
+                || date.isAfter(today.plusYears(MAX_YEARS_FROM_TODAY))) {
+            throw new BadRequest("Parameter " + name + " must be within " + MAX_YEARS_FROM_TODAY + " years of today.");
+        }
+        return date;
+    }
+
+    private static Map<String, String> parameters(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = new HashMap<>();
+        parse(exchange.getRequestURI().getRawQuery(), parameters);
+        if ("POST".equals(exchange.getRequestMethod())) {
+            try (InputStream in = exchange.getRequestBody()) {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                in.transferTo(body);
+                parse(body.toString(StandardCharsets.UTF_8), parameters);
+            }
+        }
+        return parameters;
+    }
+
+    private static void parse(String query, Map<String, String> parameters) {
+        if (query == null || query.isEmpty()) {
+            return;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    // Usage: HotelHttpServer [port] [dataDirectory]
+    public static void main(String[] args) throws IOException {
+        // Must be set before the first HttpServer is created; the JDK reads it once.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        HotelEngine hotelEngine = args.length > 1 ? HotelEngine.open(Paths.get(args[1])) : new HotelEngine();
+        hotelEngine.getMetrics().startReporting(1, TimeUnit.MINUTES, System.out);
+        try {
+            hotelEngine.getMetrics().registerMBean("http-" + port);
+        } catch (JMException e) {
+            System.err.println("Could not register hotel metrics: " + e.getMessage());
+        }
+        HotelHttpServer server = new HotelHttpServer(new HotelResource(hotelEngine), port);
+        server.start();
+        System.out.println("Hotel API listening on port " + server.getPort());
+    }
+}
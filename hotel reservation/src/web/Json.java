@@ -0,0 +1,73 @@
+package web;
+
+import model.Customer;
+import model.IRoom;
+import model.Reservation;
+import service.JsonStrings;
+
+import java.util.Collection;
+
+// Hand-written JSON encoding for the handful of types the HTTP API returns.
+final class Json {
+
+    private Json() {
+    }
+
+    static String rooms(Collection<IRoom> rooms) {
+        StringBuilder json = new StringBuilder(rooms.size() * 64 + 2).append('[');
+        for (IRoom room : rooms) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            room(json, room);
+        }
+        return json.append(']').toString();
+    }
+
+    static String room(IRoom room) {
+        return room(new StringBuilder(64), room).toString();
+    }
+
+    static String reservations(Collection<Reservation> reservations) {
+        StringBuilder json = new StringBuilder(reservations.size() * 128 + 2).append('[');
+        for (Reservation reservation : reservations) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            reservation(json, reservation);
+        }
+        return json.append(']').toString();
+    }
+
+    static String reservation(Reservation reservation) {
+        return reservation(new StringBuilder(128), reservation).toString();
+    }
+
+    static String error(String message) {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        return JsonStrings.quote(json, message).append('}').toString();
+    }
+
+    private static StringBuilder room(StringBuilder json, IRoom room) {
+        json.append("{\"roomNumber\":");
+        JsonStrings.quote(json, room.getRoomNumber());
+        json.append(",\"price\":").append(room.getRoomPrice());
+        json.append(",\"roomType\":\"").append(room.getRoomType().name());
+        return json.append("\",\"free\":").append(room.isFree()).append('}');
+    }
+
+    private static StringBuilder reservation(StringBuilder json, Reservation reservation) {
+        Customer customer = reservation.getCustomer();
+        json.append("{\"email\":");
+        JsonStrings.quote(json, customer.getEmail());
+        json.append(",\"firstName\":");
+        JsonStrings.quote(json, customer.getFirstName());
+        json.append(",\"lastName\":");
+        JsonStrings.quote(json, customer.getLastName());
+        json.append(",\"roomNumber\":");
+        JsonStrings.quote(json, reservation.getiRoom().getRoomNumber());
+        json.append(",\"price\":").append(reservation.getPrice());
+        json.append(",\"checkIn\":\"").append(reservation.getCheckInDate());
+        return json.append("\",\"checkOut\":\"").append(reservation.getCheckOutDate()).append("\"}");
+    }
+}
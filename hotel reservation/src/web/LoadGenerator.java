@@ -0,0 +1,165 @@
+package web;
+
+import api.AdminResource;
+import api.HotelResource;
+import model.IRoom;
+import model.Room;
+import model.RoomType;
+import service.HotelEngine;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Starts a local HotelHttpServer with generated rooms and customers and drives
+// it with a mixed search/book/lookup workload, then prints latency
+// percentiles and requests per second over answered requests: successes and
+// booking conflicts (409), which are correct answers under contention and are
+// also reported on their own. Errors (other statuses, I/O failures) are
+// counted apart and left out of both.
+//
+// Usage: LoadGenerator [threads] [seconds] [rooms] [shards]
+public class LoadGenerator {
+
+    private static final int CUSTOMERS = 1000;
+    private static final LocalDate FIRST_NIGHT = LocalDate.now().plusDays(1);
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int rooms = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int shards = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+        HotelEngine hotelEngine = new HotelEngine(shards);
+        List<IRoom> generatedRooms = new ArrayList<>();
+        for (int i = 0; i < rooms; i++) {
+            generatedRooms.add(new Room(String.valueOf(i), 50.0 + i % 200, i % 2 == 0 ? RoomType.Single : RoomType.Double));
+        }
+        new AdminResource(hotelEngine).addRoom(generatedRooms);
+        for (int i = 0; i < CUSTOMERS; i++) {
+            hotelEngine.getCustomerService().addCustomer(email(i), "Guest", String.valueOf(i));
+        }
+
+        HotelHttpServer server = new HotelHttpServer(new HotelResource(hotelEngine), 0);
+        server.start();
+        String base = "http://localhost:" + server.getPort();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long[][] latencies = new long[threads][];
+        int[] counts = new int[threads];
+        int[] conflicts = new int[threads];
+        int[] errors = new int[threads];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers[t] = new Thread(() -> {
+                long[] samples = new long[1 << 16];
+                int count = 0;
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        int status;
+                        try {
+                            status = client.send(nextRequest(base, rooms), HttpResponse.BodyHandlers.discarding())
+                                    .statusCode();
+                        } catch (IOException e) {
+                            errors[worker]++;
+                            continue;
+                        }
+                        // A booking that loses the race for a room is a correct answer, not a failure.
+                        if (status == 409) {
+                            conflicts[worker]++;
+                        } else if (status < 200 || status >= 300) {
+                            errors[worker]++;
+                            continue;
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = System.nanoTime() - start;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latencies[worker] = samples;
+                    counts[worker] = count;
+                }
+            }, "load-" + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        server.stop();
+        hotelEngine.close();
+
+        int total = 0;
+        int totalConflicts = 0;
+        int totalErrors = 0;
+        for (int t = 0; t < threads; t++) {
+            total += counts[t];
+            totalConflicts += conflicts[t];
+            totalErrors += errors[t];
+        }
+        long[] all = new long[total];
+        int position = 0;
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(latencies[t], 0, all, position, counts[t]);
+            position += counts[t];
+        }
+        Arrays.sort(all);
+        System.out.println("Requests: " + total + "  Requests/sec: " + Math.round(total / (double) seconds));
+        System.out.println("p50: " + micros(percentile(all, 0.50)) + "us  p99: " + micros(percentile(all, 0.99)) +
+                "us  max: " + micros(total == 0 ? 0 : all[total - 1]) + "us");
+        System.out.println("Succeeded: " + (total - totalConflicts) + "  Conflicts: " + totalConflicts
+                + "  Errors: " + totalErrors);
+    }
+
+    // 70% searches, 20% bookings, 10% reservation lookups.
+    private static HttpRequest nextRequest(String base, int rooms) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate checkIn = FIRST_NIGHT.plusDays(random.nextInt(365));
+        LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(7));
+        int roll = random.nextInt(10);
+        if (roll < 7) {
+            return HttpRequest.newBuilder(URI.create(base + "/rooms?checkIn=" + checkIn + "&checkOut=" + checkOut))
+                    .GET().build();
+        }
+        String email = email(random.nextInt(CUSTOMERS));
+        if (roll < 9) {
+            String form = "email=" + email + "&room=" + random.nextInt(rooms) +
+                    "&checkIn=" + checkIn + "&checkOut=" + checkOut;
+            return HttpRequest.newBuilder(URI.create(base + "/reservations"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form)).build();
+        }
+        return HttpRequest.newBuilder(URI.create(base + "/reservations?email=" + email)).GET().build();
+    }
+
+    private static String email(int customer) {
+        return "guest" + customer + "@hotel.com";
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static long micros(long nanos) {
+        return nanos / 1000;
+    }
+}